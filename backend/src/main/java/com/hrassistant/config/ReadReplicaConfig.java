@@ -0,0 +1,124 @@
+package com.hrassistant.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read/write datasource routing, enabled by {@code hr-assistant.datasource.replica.enabled}.
+ *
+ * Read-only transactions (similarity searches, document listing, categories) go to the replicas
+ * listed in {@code hr-assistant.datasource.replica.urls}; writes and non-transactional statements
+ * go to the primary configured by {@code spring.datasource}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "hr-assistant.datasource.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Value("${hr-assistant.datasource.replica.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${hr-assistant.datasource.replica.username:}")
+    private String replicaUsername;
+
+    @Value("${hr-assistant.datasource.replica.password:}")
+    private String replicaPassword;
+
+    @Value("${hr-assistant.datasource.replica.maximum-pool-size:10}")
+    private int replicaPoolSize;
+
+    /**
+     * Primary connection pool, configured like the auto-configured one: {@code spring.datasource}
+     * (or the connection details) and the {@code spring.datasource.hikari} pool settings.
+     *
+     * @param properties spring.datasource properties, used when no connection details bean exists
+     * @param connectionDetails primary connection details (e.g. from Docker Compose)
+     * @return Primary pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties,
+                                              ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        if (details != null) {
+            primary.setJdbcUrl(details.getJdbcUrl());
+            primary.setUsername(details.getUsername());
+            primary.setPassword(details.getPassword());
+        }
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        return primary;
+    }
+
+    /**
+     * Creates the routing datasource over the primary and replica connection pools. Replicas
+     * share the primary's pool settings, except for their size.
+     *
+     * @param primary Primary pool
+     * @param replicationLagGuard read-your-writes guard
+     * @return Routing datasource, closing its pools on shutdown
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primary,
+                                                             ReplicationLagGuard replicationLagGuard) {
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primary);
+        List<String> replicaKeys = new ArrayList<>();
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            primary.copyStateTo(replica);
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls.get(i));
+            if (!replicaUsername.isEmpty()) {
+                replica.setUsername(replicaUsername);
+            }
+            if (!replicaPassword.isEmpty()) {
+                replica.setPassword(replicaPassword);
+            }
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            targets.put(replica.getPoolName(), replica);
+            replicaKeys.add(replica.getPoolName());
+            replicas.add(replica);
+        }
+        replicationLagGuard.monitor(primary, replicas);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicationLagGuard, replicaKeys);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        log.info("Read replica routing enabled: {} replica(s) {}", replicaKeys.size(), replicaUrls);
+        return routing;
+    }
+
+    /**
+     * Application datasource: defers fetching a connection to the first statement, once the
+     * transaction's read-only flag is known to the routing datasource.
+     *
+     * @param replicaRoutingDataSource Routing datasource
+     * @return Lazy proxy over the routing datasource
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
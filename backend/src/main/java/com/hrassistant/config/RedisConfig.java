@@ -1,11 +1,11 @@
 package com.hrassistant.config;
 
-import com.hrassistant.model.CachedResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJacksonJsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -15,31 +15,37 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 public class RedisConfig {
 
     /**
-     * Configures RedisTemplate with JSON serialization for CachedResponse objects.
-     * Uses StringRedisSerializer for keys and GenericJacksonJsonRedisSerializer for values.
-     * Jackson 3 has built-in support for Java 8 date/time types (JSR310).
+     * Configures a RedisTemplate storing raw bytes, used for the binary cached response hashes
+     * (see CachedResponseCodec). Keys and hash field names are plain strings.
      *
      * @param connectionFactory Redis connection factory (auto-configured by Spring Boot)
-     * @return Configured RedisTemplate for CachedResponse storage
+     * @return Configured RedisTemplate for binary values
      */
     @Bean
-    public RedisTemplate<String, CachedResponse> cachedResponseRedisTemplate(
-            RedisConnectionFactory connectionFactory) {
-
-        RedisTemplate<String, CachedResponse> template = new RedisTemplate<>();
+    public RedisTemplate<String, byte[]> binaryRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        // Configure key serializer
         template.setKeySerializer(new StringRedisSerializer());
-
-        // Configure value serializer with Jackson 3 (JSR310 support is built-in)
-        GenericJacksonJsonRedisSerializer serializer = GenericJacksonJsonRedisSerializer.builder()
-                .build();
-
-        template.setValueSerializer(serializer);
-        template.setHashValueSerializer(serializer);
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
 
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * Listener container for the Redis pub/sub channels, used to propagate cache invalidations
+     * between application nodes.
+     *
+     * @param connectionFactory Redis connection factory (auto-configured by Spring Boot)
+     * @return Listener container; listeners register themselves on it
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
@@ -0,0 +1,52 @@
+package com.hrassistant.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to the read replicas (round robin) and everything else to the
+ * primary. Must be wrapped in a {@code LazyConnectionDataSourceProxy} so the connection is only
+ * fetched once the transaction's read-only flag is known.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicationLagGuard replicationLagGuard;
+    private final List<String> replicaKeys;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaKeys.isEmpty()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || replicationLagGuard.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+    }
+
+    /**
+     * Closes the primary and replica connection pools.
+     */
+    @Override
+    public void close() {
+        for (DataSource target : getResolvedDataSources().values()) {
+            if (target instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close datasource: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
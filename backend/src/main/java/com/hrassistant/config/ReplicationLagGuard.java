@@ -0,0 +1,203 @@
+package com.hrassistant.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes guard for read-replica routing.
+ *
+ * After a document is uploaded, renamed or deleted, the primary's WAL position (LSN) is recorded
+ * in Redis, shared by every application node, and all reads go to the primary until every replica
+ * has replayed up to that position ({@code pg_last_wal_replay_lsn()}, polled every
+ * {@code lag-poll-interval-ms}). A user asking any question right after an upload, on any node,
+ * therefore sees the new document, and reads go back to the replicas as soon as they have caught
+ * up. A write is forgotten after {@code read-your-writes-max-window} even if a replica never
+ * catches up. Without replicas, the guard has no effect.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReplicationLagGuard {
+
+    // Highest WAL position written and not yet replayed by every replica, as a decimal number
+    private static final String PENDING_LSN_KEY = "hr-assistant:replication:pending-lsn";
+    // Raises the pending position, never lowers it, and extends its expiry
+    private static final RedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>("""
+            local pending = redis.call('GET', KEYS[1])
+            if not pending or tonumber(pending) < tonumber(ARGV[1]) then
+                redis.call('SET', KEYS[1], ARGV[1])
+            end
+            return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            """, Long.class);
+    // Clears the pending position unless a later write raised it meanwhile
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${hr-assistant.datasource.replica.read-your-writes-max-window:5m}")
+    private Duration maxWindow;
+
+    private volatile JdbcTemplate primary;
+    private volatile List<JdbcTemplate> replicas = List.of();
+
+    /**
+     * Tracks the replication of writes from the primary to the replicas. Called once the
+     * routing datasource is built.
+     *
+     * @param primaryDataSource The primary
+     * @param replicaDataSources The read replicas
+     */
+    public void monitor(DataSource primaryDataSource, List<DataSource> replicaDataSources) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replicas = replicaDataSources.stream().map(JdbcTemplate::new).toList();
+    }
+
+    /**
+     * Records a write to a document once the current transaction commits.
+     *
+     * @param documentId The written document ID
+     */
+    public void recordWrite(String documentId) {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markWritten(documentId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markWritten(documentId);
+            }
+        });
+    }
+
+    /**
+     * Whether a write, made on any node, is not yet replayed by every replica.
+     */
+    public boolean hasRecentWrites() {
+        if (replicas.isEmpty()) {
+            return false;
+        }
+        try {
+            // Cleared by the first poll, on any node, that finds every replica caught up
+            return Boolean.TRUE.equals(redisTemplate.hasKey(PENDING_LSN_KEY));
+        } catch (Exception e) {
+            // Unknown: the primary is always up to date
+            log.debug("Failed to read pending replication position: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Runs an action with all its reads sent to the primary.
+     */
+    public <T> T onPrimary(Supplier<T> action) {
+        if (PRIMARY_REQUIRED.get()) {
+            return action.get();
+        }
+        PRIMARY_REQUIRED.set(true);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    /**
+     * Whether the current read must go to the primary: the thread requires it, or a write is
+     * not yet replayed by every replica.
+     */
+    public boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() || hasRecentWrites();
+    }
+
+    /**
+     * Reads the replicas' replay position while a write is pending, and clears the pending
+     * write once every replica has replayed it.
+     */
+    @Scheduled(fixedDelayString = "${hr-assistant.datasource.replica.lag-poll-interval-ms:500}")
+    public void pollReplication() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        String pending;
+        try {
+            pending = redisTemplate.opsForValue().get(PENDING_LSN_KEY);
+        } catch (Exception e) {
+            log.debug("Failed to read pending replication position: {}", e.getMessage());
+            return;
+        }
+        if (pending == null) {
+            return;
+        }
+        long replayed = Long.MAX_VALUE;
+        for (JdbcTemplate replica : replicas) {
+            try {
+                String lsn = replica.queryForObject("SELECT pg_last_wal_replay_lsn()::text", String.class);
+                // Null when the server is not in recovery, i.e. not lagging
+                if (lsn != null) {
+                    replayed = Math.min(replayed, parseLsn(lsn));
+                }
+            } catch (Exception e) {
+                log.debug("Failed to read replica replay position: {}", e.getMessage());
+                replayed = Long.MIN_VALUE;
+            }
+        }
+        if (replayed >= Long.parseLong(pending)) {
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(PENDING_LSN_KEY), pending);
+            } catch (Exception e) {
+                log.debug("Failed to clear pending replication position: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void markWritten(String documentId) {
+        long lsn;
+        try {
+            lsn = parseLsn(primary.queryForObject("SELECT pg_current_wal_lsn()::text", String.class));
+        } catch (Exception e) {
+            // Unknown position: read from the primary until the maximum window ends
+            log.warn("Failed to read primary WAL position: {}", e.getMessage());
+            lsn = Long.MAX_VALUE;
+        }
+        try {
+            redisTemplate.execute(RECORD_SCRIPT, List.of(PENDING_LSN_KEY),
+                    String.valueOf(lsn), String.valueOf(maxWindow.toMillis()));
+        } catch (Exception e) {
+            log.warn("Failed to record write to document {} for read-your-writes: {}", documentId, e.getMessage());
+        }
+    }
+
+    /**
+     * @param lsn A PostgreSQL LSN, two hexadecimal 32-bit halves separated by a slash
+     * @return The position as a number, ordered like the WAL
+     */
+    static long parseLsn(String lsn) {
+        int separator = lsn.indexOf('/');
+        return (Long.parseLong(lsn.substring(0, separator), 16) << 32)
+                | Long.parseLong(lsn.substring(separator + 1), 16);
+    }
+}
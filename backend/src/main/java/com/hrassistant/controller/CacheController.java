@@ -0,0 +1,36 @@
+package com.hrassistant.controller;
+
+import com.hrassistant.model.CacheStats;
+import com.hrassistant.service.CacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for semantic cache administration.
+ *
+ * Endpoints:
+ * - GET /api/admin/cache/stats - Entries, Redis memory, hit and admission rates, lookup latency
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final CacheService cacheService;
+
+    /**
+     * Reports the cache size, footprint, efficiency and lookup latency.
+     *
+     * @param sampleSize Maximum number of entries whose memory is measured
+     * @return Entries, memory, hit and admission rates, and lookup latency
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStats> getStats(
+            @RequestParam(value = "sampleSize", defaultValue = "100") int sampleSize) {
+        return ResponseEntity.ok(cacheService.stats(sampleSize));
+    }
+}
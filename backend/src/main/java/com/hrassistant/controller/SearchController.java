@@ -0,0 +1,58 @@
+package com.hrassistant.controller;
+
+import com.hrassistant.model.BatchSearchRequest;
+import com.hrassistant.model.SearchQuery;
+import com.hrassistant.model.SearchResult;
+import com.hrassistant.service.SearchService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for retrieval-only search (no guardrail classification, no generation).
+ *
+ * Endpoints:
+ * - POST /api/search - Passages matching one query
+ * - POST /api/search/batch - Passages matching several queries
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    /**
+     * Searches the passages matching one query.
+     *
+     * @param query Query with optional document filter
+     * @return Matching passages with scores, document IDs and chunk indices
+     */
+    @PostMapping
+    public ResponseEntity<SearchResult> search(@Valid @RequestBody SearchQuery query) {
+        log.info("Received search request: {}", query.getQuery());
+
+        return ResponseEntity.ok(searchService.search(query));
+    }
+
+    /**
+     * Searches the passages matching several queries.
+     *
+     * @param request Queries, each with an optional document filter
+     * @return One result per query, in request order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<SearchResult>> searchBatch(@Valid @RequestBody BatchSearchRequest request) {
+        log.info("Received batch search request with {} queries", request.getQueries().size());
+
+        return ResponseEntity.ok(searchService.searchBatch(request.getQueries()));
+    }
+}
@@ -0,0 +1,66 @@
+package com.hrassistant.controller;
+
+import com.hrassistant.model.SnapshotImportResult;
+import com.hrassistant.service.SnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+
+/**
+ * REST controller for snapshots of the document catalog and vector store.
+ *
+ * Endpoints:
+ * - GET /api/admin/snapshot - Stream a compressed binary snapshot
+ * - POST /api/admin/snapshot - Load a snapshot (request body) without re-embedding
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/snapshot")
+@RequiredArgsConstructor
+public class SnapshotController {
+
+    private final SnapshotService snapshotService;
+
+    /**
+     * Exports the catalog, chunks and embeddings.
+     *
+     * @param includeFiles Whether to embed the original uploaded files
+     * @return The snapshot, streamed as it is written
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportSnapshot(
+            @RequestParam(value = "includeFiles", defaultValue = "true") boolean includeFiles) {
+        log.info("Received snapshot export request (includeFiles={})", includeFiles);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"hr-assistant-" + LocalDate.now() + ".snapshot\"")
+                .body(out -> snapshotService.exportSnapshot(out, includeFiles));
+    }
+
+    /**
+     * Imports a snapshot produced by {@link #exportSnapshot(boolean)}.
+     *
+     * @param body The snapshot bytes
+     * @return Import counts
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<SnapshotImportResult> importSnapshot(InputStream body) throws IOException {
+        log.info("Received snapshot import request");
+
+        return ResponseEntity.ok(snapshotService.importSnapshot(body));
+    }
+}
@@ -0,0 +1,85 @@
+package com.hrassistant.controller;
+
+import com.hrassistant.model.QuantizationReport;
+import com.hrassistant.model.VectorIndexHealth;
+import com.hrassistant.service.VectorIndexMaintenanceService;
+import com.hrassistant.service.VectorIndexReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for vector index administration.
+ *
+ * Endpoints:
+ * - GET /api/admin/vector-index/quantization-report - Index size, memory and recall per representation
+ * - POST /api/admin/vector-index/quantized-indexes - Create the missing quantized indexes
+ * - GET /api/admin/vector-index/health - Dead tuples, index bloat and search latency
+ * - POST /api/admin/vector-index/maintenance - Run VACUUM / REINDEX now
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/vector-index")
+@RequiredArgsConstructor
+public class VectorIndexController {
+
+    private final VectorIndexReportService vectorIndexReportService;
+    private final VectorIndexMaintenanceService vectorIndexMaintenanceService;
+
+    /**
+     * Compares the full-precision index with the quantized and truncated first stages.
+     *
+     * @param sampleSize Number of stored chunks used as sample queries
+     * @return One report per representation
+     */
+    @GetMapping("/quantization-report")
+    public ResponseEntity<List<QuantizationReport>> getQuantizationReport(
+            @RequestParam(value = "sampleSize", defaultValue = "50") int sampleSize) {
+        log.info("Received quantization report request (sampleSize={})", sampleSize);
+
+        return ResponseEntity.ok(vectorIndexReportService.quantizationReport(sampleSize));
+    }
+
+    /**
+     * Creates the missing quantized first-stage indexes, so the report can measure them.
+     *
+     * @return The names of the first-stage indexes
+     */
+    @PostMapping("/quantized-indexes")
+    public ResponseEntity<List<String>> buildQuantizedIndexes() {
+        log.info("Received quantized index build request");
+
+        return ResponseEntity.ok(vectorIndexReportService.buildQuantizedIndexes());
+    }
+
+    /**
+     * Reports the vector index health tracked by the maintenance scheduler.
+     *
+     * @return Table statistics, bloat, due maintenance and search latency
+     */
+    @GetMapping("/health")
+    public ResponseEntity<VectorIndexHealth> getHealth() {
+        return ResponseEntity.ok(vectorIndexMaintenanceService.health());
+    }
+
+    /**
+     * Runs the due maintenance immediately, outside the low-traffic window.
+     *
+     * @param force Whether to vacuum and reindex regardless of the thresholds
+     * @return The index health after maintenance
+     */
+    @PostMapping("/maintenance")
+    public ResponseEntity<VectorIndexHealth> runMaintenance(
+            @RequestParam(value = "force", defaultValue = "false") boolean force) {
+        log.info("Received vector index maintenance request (force={})", force);
+
+        return ResponseEntity.ok(vectorIndexMaintenanceService.runMaintenance(force));
+    }
+}
@@ -0,0 +1,369 @@
+package com.hrassistant.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical Navigable Small World graph for approximate nearest-neighbour search
+ * using cosine similarity.
+ *
+ * Vectors are L2-normalized on insert so that similarity is a plain dot product.
+ * The graph (adjacency lists) lives on the heap; vectors live in the supplied
+ * {@link VectorStorage}. Removal is logical: removed slots stay in the graph to keep
+ * it navigable but are never returned. Writers are serialized; searches run concurrently.
+ *
+ * See Malkov &amp; Yashunin, "Efficient and robust approximate nearest neighbor search
+ * using Hierarchical Navigable Small World graphs" (2016).
+ */
+public class HnswIndex implements AutoCloseable {
+
+    private static final Comparator<ScoredSlot> BY_SCORE = Comparator.comparingDouble(ScoredSlot::score);
+
+    private final VectorStorage storage;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<int[][]> links = new ArrayList<>();
+    private final List<int[]> linkCounts = new ArrayList<>();
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    /**
+     * @param storage Storage receiving the normalized vectors
+     * @param m Maximum number of links per node on upper layers (layer 0 allows 2 * m)
+     * @param efConstruction Size of the dynamic candidate list while inserting
+     */
+    public HnswIndex(VectorStorage storage, int m, int efConstruction) {
+        if (m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("m must be >= 2 and efConstruction >= 1");
+        }
+        this.storage = storage;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    /**
+     * A search hit: the slot of a vector and its cosine similarity to the query.
+     */
+    public record ScoredSlot(int slot, float score) {}
+
+    /**
+     * Inserts a vector and links it into the graph.
+     *
+     * @param vector The vector to insert (need not be normalized)
+     * @return The slot assigned to the vector
+     */
+    public int insert(float[] vector) {
+        float[] normalized = normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            int slot = storage.append(normalized);
+            int level = randomLevel();
+
+            int[][] nodeLinks = new int[level + 1][];
+            int[] nodeCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                nodeLinks[l] = new int[maxLinks(l)];
+            }
+            links.add(nodeLinks);
+            linkCounts.add(nodeCounts);
+
+            if (entryPoint < 0) {
+                entryPoint = slot;
+                maxLevel = level;
+                return slot;
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<ScoredSlot> candidates = searchLayer(normalized, current, efConstruction, l, null);
+                List<ScoredSlot> selected = candidates.subList(0, Math.min(m, candidates.size()));
+                for (ScoredSlot neighbour : selected) {
+                    addLink(slot, neighbour.slot(), l);
+                    addLink(neighbour.slot(), slot, l);
+                }
+                current = candidates.get(0).slot();
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = slot;
+            }
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks a slot as removed. The node keeps routing searches but is never returned.
+     *
+     * @param slot The slot to remove
+     */
+    public void remove(int slot) {
+        lock.writeLock().lock();
+        try {
+            if (!removed.get(slot)) {
+                removed.set(slot);
+                removedCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the approximate nearest neighbours of the query.
+     *
+     * @param query The query vector (need not be normalized)
+     * @param k Number of results to return
+     * @param ef Size of the dynamic candidate list (clamped to at least k)
+     * @param filter Optional predicate on slots; only accepted slots are returned
+     * @return Hits sorted by descending similarity
+     */
+    public List<ScoredSlot> search(float[] query, int k, int ef, IntPredicate filter) {
+        float[] normalized = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+
+            IntPredicate accept = filter == null
+                    ? slot -> !removed.get(slot)
+                    : slot -> !removed.get(slot) && filter.test(slot);
+
+            List<ScoredSlot> results = searchLayer(normalized, current, Math.max(ef, k), 0, accept);
+            return results.size() > k ? List.copyOf(results.subList(0, k)) : results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores the given slots exhaustively. Used when a filter selects so few vectors
+     * that walking the graph would cost more than comparing them all.
+     *
+     * @param query The query vector (need not be normalized)
+     * @param k Number of results to return
+     * @param slots Candidate slots
+     * @return Hits sorted by descending similarity
+     */
+    public List<ScoredSlot> exactSearch(float[] query, int k, int[] slots) {
+        float[] normalized = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            PriorityQueue<ScoredSlot> best = new PriorityQueue<>(BY_SCORE);
+            for (int slot : slots) {
+                if (removed.get(slot)) {
+                    continue;
+                }
+                best.offer(new ScoredSlot(slot, storage.dot(slot, normalized)));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+            return sortDescending(best);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param slot A slot returned by {@link #insert}
+     * @return The stored vector, normalized
+     */
+    public float[] vector(int slot) {
+        lock.readLock().lock();
+        try {
+            return storage.get(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of live (not removed) vectors
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return storage.size() - removedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The fraction of slots that were removed, used to decide when to rebuild
+     */
+    public double removedRatio() {
+        lock.readLock().lock();
+        try {
+            return storage.size() == 0 ? 0.0 : (double) removedCount / storage.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            storage.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float currentScore = storage.dot(current, query);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links.get(current)[level];
+            int count = linkCounts.get(current)[level];
+            for (int i = 0; i < count; i++) {
+                float score = storage.dot(neighbours[i], query);
+                if (score > currentScore) {
+                    currentScore = score;
+                    current = neighbours[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search on one layer. When {@code accept} is null every visited node may
+     * be returned (construction); otherwise only accepted nodes fill the result list while
+     * rejected ones are still traversed.
+     */
+    private List<ScoredSlot> searchLayer(float[] query, int start, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(storage.size());
+        PriorityQueue<ScoredSlot> candidates = new PriorityQueue<>(BY_SCORE.reversed());
+        PriorityQueue<ScoredSlot> results = new PriorityQueue<>(BY_SCORE);
+
+        ScoredSlot first = new ScoredSlot(start, storage.dot(start, query));
+        visited.set(start);
+        candidates.offer(first);
+        if (accept == null || accept.test(start)) {
+            results.offer(first);
+        }
+
+        while (!candidates.isEmpty()) {
+            ScoredSlot candidate = candidates.poll();
+            if (results.size() >= ef && candidate.score() < results.peek().score()) {
+                break;
+            }
+
+            int[] neighbours = links.get(candidate.slot())[level];
+            int count = linkCounts.get(candidate.slot())[level];
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                float score = storage.dot(neighbour, query);
+                if (results.size() < ef || score > results.peek().score()) {
+                    ScoredSlot scored = new ScoredSlot(neighbour, score);
+                    candidates.offer(scored);
+                    if (accept == null || accept.test(neighbour)) {
+                        results.offer(scored);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        return sortDescending(results);
+    }
+
+    private void addLink(int from, int to, int level) {
+        int[] neighbours = links.get(from)[level];
+        int[] counts = linkCounts.get(from);
+        if (counts[level] < neighbours.length) {
+            neighbours[counts[level]++] = to;
+            return;
+        }
+
+        // Full: keep the closest neighbours, replacing the weakest link if the new one is closer
+        float[] origin = storage.get(from);
+        int weakest = -1;
+        float weakestScore = storage.dot(to, origin);
+        for (int i = 0; i < neighbours.length; i++) {
+            float score = storage.dot(neighbours[i], origin);
+            if (score < weakestScore) {
+                weakestScore = score;
+                weakest = i;
+            }
+        }
+        if (weakest >= 0) {
+            neighbours[weakest] = to;
+        }
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    private int randomLevel() {
+        double uniform = 1.0 - random.nextDouble();
+        return (int) Math.floor(-Math.log(uniform) * levelMultiplier);
+    }
+
+    private static List<ScoredSlot> sortDescending(PriorityQueue<ScoredSlot> heap) {
+        List<ScoredSlot> sorted = new ArrayList<>(heap);
+        sorted.sort(BY_SCORE.reversed());
+        return sorted;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0.0) {
+            return vector.clone();
+        }
+        float inverse = (float) (1.0 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inverse;
+        }
+        return normalized;
+    }
+}
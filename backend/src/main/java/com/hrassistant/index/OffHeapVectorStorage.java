@@ -0,0 +1,143 @@
+package com.hrassistant.index;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vector storage backed by a memory-mapped file.
+ *
+ * Vectors live outside the Java heap, in fixed-size segments mapped on demand
+ * (a single mapping is limited to 2 GB). The file is truncated on open: its content
+ * is a replica that is always rebuilt from PostgreSQL, never a source of truth.
+ */
+@Slf4j
+public class OffHeapVectorStorage implements VectorStorage {
+
+    private static final int DEFAULT_VECTORS_PER_SEGMENT = 65_536;
+
+    private final FileChannel channel;
+    private final int dimensions;
+    private final int vectorsPerSegment;
+    private final long segmentBytes;
+    private final List<FloatBuffer> segments = new ArrayList<>();
+    private int size;
+
+    public OffHeapVectorStorage(Path file, int dimensions) {
+        this(file, dimensions, DEFAULT_VECTORS_PER_SEGMENT);
+    }
+
+    public OffHeapVectorStorage(Path file, int dimensions, int vectorsPerSegment) {
+        if (dimensions <= 0 || vectorsPerSegment <= 0) {
+            throw new IllegalArgumentException("Dimensions and segment size must be positive");
+        }
+        this.dimensions = dimensions;
+        this.vectorsPerSegment = vectorsPerSegment;
+        this.segmentBytes = (long) vectorsPerSegment * dimensions * Float.BYTES;
+        if (segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment exceeds the 2 GB mapping limit");
+        }
+
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            log.debug("Opened off-heap vector file: {} ({} dimensions)", file.toAbsolutePath(), dimensions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open vector file " + file, e);
+        }
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int append(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+
+        int slot = size;
+        int segment = slot / vectorsPerSegment;
+        if (segment == segments.size()) {
+            segments.add(mapSegment(segment));
+        }
+
+        segments.get(segment).put(offset(slot), vector);
+        size++;
+        return slot;
+    }
+
+    @Override
+    public float[] get(int slot) {
+        float[] vector = new float[dimensions];
+        segmentOf(slot).get(offset(slot), vector);
+        return vector;
+    }
+
+    @Override
+    public float dot(int slot, float[] query) {
+        FloatBuffer buffer = segmentOf(slot);
+        int base = offset(slot);
+        float sum = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            sum += buffer.get(base + i) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void close() {
+        segments.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close vector file: {}", e.getMessage());
+        }
+    }
+
+    private FloatBuffer segmentOf(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of range [0, " + size + ")");
+        }
+        return segments.get(slot / vectorsPerSegment);
+    }
+
+    private int offset(int slot) {
+        return (slot % vectorsPerSegment) * dimensions;
+    }
+
+    private FloatBuffer mapSegment(int segment) {
+        try {
+            MappedByteBuffer mapped = channel.map(
+                    FileChannel.MapMode.READ_WRITE, segment * segmentBytes, segmentBytes);
+            return mapped.order(ByteOrder.nativeOrder()).asFloatBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map vector segment " + segment, e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.hrassistant.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vector storage on the Java heap, in fixed-size float array segments so growing it never
+ * copies the vectors already stored. Suited to small indexes that are rebuilt from their
+ * source on startup, where a memory-mapped file would add nothing.
+ */
+public class OnHeapVectorStorage implements VectorStorage {
+
+    private static final int DEFAULT_VECTORS_PER_SEGMENT = 1_024;
+
+    private final int dimensions;
+    private final int vectorsPerSegment;
+    private final List<float[]> segments = new ArrayList<>();
+    private int size;
+
+    public OnHeapVectorStorage(int dimensions) {
+        this(dimensions, DEFAULT_VECTORS_PER_SEGMENT);
+    }
+
+    public OnHeapVectorStorage(int dimensions, int vectorsPerSegment) {
+        if (dimensions <= 0 || vectorsPerSegment <= 0) {
+            throw new IllegalArgumentException("Dimensions and segment size must be positive");
+        }
+        if ((long) vectorsPerSegment * dimensions > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment exceeds the maximum array length");
+        }
+        this.dimensions = dimensions;
+        this.vectorsPerSegment = vectorsPerSegment;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int append(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+
+        int slot = size;
+        int segment = slot / vectorsPerSegment;
+        if (segment == segments.size()) {
+            segments.add(new float[vectorsPerSegment * dimensions]);
+        }
+
+        System.arraycopy(vector, 0, segments.get(segment), offset(slot), dimensions);
+        size++;
+        return slot;
+    }
+
+    @Override
+    public float[] get(int slot) {
+        float[] vector = new float[dimensions];
+        System.arraycopy(segmentOf(slot), offset(slot), vector, 0, dimensions);
+        return vector;
+    }
+
+    @Override
+    public float dot(int slot, float[] query) {
+        float[] segment = segmentOf(slot);
+        int base = offset(slot);
+        float sum = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            sum += segment[base + i] * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void close() {
+        segments.clear();
+    }
+
+    private float[] segmentOf(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of range [0, " + size + ")");
+        }
+        return segments.get(slot / vectorsPerSegment);
+    }
+
+    private int offset(int slot) {
+        return (slot % vectorsPerSegment) * dimensions;
+    }
+}
@@ -0,0 +1,49 @@
+package com.hrassistant.index;
+
+/**
+ * Slot-addressed storage for fixed-dimension float vectors used by {@link HnswIndex}.
+ *
+ * Slots are allocated sequentially by {@link #append(float[])} and are never reused,
+ * so a slot number is a stable identifier for the lifetime of the storage.
+ * Implementations are not thread-safe; the owning index serializes writes.
+ */
+public interface VectorStorage extends AutoCloseable {
+
+    /**
+     * @return The number of components of every stored vector
+     */
+    int dimensions();
+
+    /**
+     * @return The number of allocated slots
+     */
+    int size();
+
+    /**
+     * Appends a vector and returns the slot it was written to.
+     *
+     * @param vector The vector to store (length must equal {@link #dimensions()})
+     * @return The allocated slot
+     */
+    int append(float[] vector);
+
+    /**
+     * Copies the vector stored in a slot.
+     *
+     * @param slot The slot to read
+     * @return A fresh array holding the vector
+     */
+    float[] get(int slot);
+
+    /**
+     * Computes the dot product between a stored vector and the given query without copying.
+     *
+     * @param slot The slot to compare
+     * @param query The query vector
+     * @return The dot product
+     */
+    float dot(int slot, float[] query);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,19 @@
+package com.hrassistant.model;
+
+import java.util.List;
+
+/**
+ * What an answer was built from, recorded with its cache entry so the entry is only invalidated
+ * by changes that could alter it.
+ *
+ * @param documentIds documents whose passages made up the prompt context
+ * @param minScore similarity of the weakest passage used; a new chunk scoring at least this
+ *     against the question would have entered the context (0 when nothing was retrieved)
+ */
+public record AnswerDependencies(List<String> documentIds, double minScore) {
+
+  /** Dependencies of an answer given without any retrieved passage. */
+  public static AnswerDependencies none() {
+    return new AnswerDependencies(List.of(), 0);
+  }
+}
@@ -0,0 +1,33 @@
+package com.hrassistant.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for batch retrieval-only search requests.
+ *
+ * <pre>
+ * POST /api/search/batch
+ * {
+ *   "queries": [
+ *     { "query": "Combien de jours de congés ai-je ?" },
+ *     { "query": "Comment déclarer un arrêt maladie ?", "documentIds": ["doc-1"] }
+ *   ]
+ * }
+ * </pre>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchRequest {
+
+    @NotEmpty(message = "La liste des requêtes ne peut pas être vide")
+    private List<@Valid SearchQuery> queries;
+}
@@ -0,0 +1,29 @@
+package com.hrassistant.model;
+
+/**
+ * Size, footprint, efficiency and latency of the semantic response cache.
+ *
+ * @param entries cached responses in the current generation
+ * @param maxEntries configured bound on the number of cached responses
+ * @param sampledEntries number of cache entries measured
+ * @param bytesPerEntry mean Redis memory per entry (MEMORY USAGE), over the sampled entries
+ * @param estimatedBytes estimated Redis memory of all entries ({@code entries * bytesPerEntry})
+ * @param hitRatio share of lookups served from the cache since startup
+ * @param admissionRatio share of generated responses admitted to the cache since startup
+ * @param evictions entries evicted to make room for more frequent questions since startup
+ * @param lookupCount cache lookups timed since startup
+ * @param lookupMeanLatencyMs mean lookup latency since startup
+ * @param lookupMaxLatencyMs maximum lookup latency in the recent window
+ */
+public record CacheStats(
+    long entries,
+    long maxEntries,
+    long sampledEntries,
+    double bytesPerEntry,
+    long estimatedBytes,
+    double hitRatio,
+    double admissionRatio,
+    long evictions,
+    long lookupCount,
+    double lookupMeanLatencyMs,
+    double lookupMaxLatencyMs) {}
@@ -30,7 +30,8 @@ public class CachedResponse implements Serializable {
 
     /**
      * The question embedding (768 dimensions for nomic-embed-text).
-     * Used for semantic similarity matching.
+     * Used for semantic similarity matching; stored apart from the body in Redis,
+     * so it is null on responses read back from the cache.
      */
     private float[] questionEmbedding;
 
@@ -12,7 +12,12 @@ import lombok.NoArgsConstructor;
 public class DocumentChunk {
     private String id;
     private String documentId;
-    private String documentName;
     private int index;
     private String content;
+
+    /**
+     * HR category of the source document (HrCategory name), or null if it has none.
+     * Used to scope similarity searches to one category.
+     */
+    private String category;
 }
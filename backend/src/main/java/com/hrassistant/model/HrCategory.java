@@ -1,5 +1,9 @@
 package com.hrassistant.model;
 
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -17,4 +21,29 @@ public enum HrCategory {
   GENERAL_RH("Général RH");
 
   private final String displayLabel;
+
+  /**
+   * Resolves a free-text document category to an HR category. Matches either the enum name or the
+   * display label, ignoring case, accents and punctuation ("conges absences", "Congés / Absences").
+   *
+   * @param label the category as entered at upload
+   * @return the matching category, or empty if none matches
+   */
+  public static Optional<HrCategory> fromLabel(String label) {
+    if (label == null || label.isBlank()) {
+      return Optional.empty();
+    }
+    String key = fold(label);
+    return Arrays.stream(values())
+        .filter(category -> fold(category.name()).equals(key) || fold(category.displayLabel).equals(key))
+        .findFirst();
+  }
+
+  private static String fold(String text) {
+    return Normalizer.normalize(text, Normalizer.Form.NFD)
+        .replaceAll("\\p{M}", "")
+        .toLowerCase(Locale.ROOT)
+        .replaceAll("[^a-z0-9]+", " ")
+        .trim();
+  }
 }
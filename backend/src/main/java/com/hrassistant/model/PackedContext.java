@@ -0,0 +1,13 @@
+package com.hrassistant.model;
+
+import java.util.List;
+import org.springframework.ai.document.Document;
+
+/**
+ * Context section of the prompt, as assembled by the context packer.
+ *
+ * @param text formatted context to substitute into the prompt
+ * @param passages retrieved passages that contributed to the text, best first
+ * @param estimatedTokens estimated token count of the text
+ */
+public record PackedContext(String text, List<Document> passages, int estimatedTokens) {}
@@ -0,0 +1,19 @@
+package com.hrassistant.model;
+
+/**
+ * Size and quality figures for one first-stage representation of the vector index.
+ *
+ * @param quantization the representation measured
+ * @param indexName name of the HNSW index backing it
+ * @param indexSizeBytes on-disk size of the index (null if the index does not exist)
+ * @param bytesPerVector bytes stored per vector by the representation
+ * @param recallAt5 share of the exact top-5 also returned by the search (null if not measured)
+ * @param averageLatencyMs mean search latency over the sample queries (null if not measured)
+ */
+public record QuantizationReport(
+    VectorQuantization quantization,
+    String indexName,
+    Long indexSizeBytes,
+    int bytesPerVector,
+    Double recallAt5,
+    Double averageLatencyMs) {}
@@ -0,0 +1,35 @@
+package com.hrassistant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for one passage returned by the search API.
+ *
+ * <pre>
+ * {
+ *   "chunkId": "0b6f...",
+ *   "documentId": "doc-1",
+ *   "documentName": "conges.pdf",
+ *   "chunkIndex": 3,
+ *   "category": "CONGES",
+ *   "score": 0.82,
+ *   "content": "Chaque salarié acquiert 2,5 jours ouvrables..."
+ * }
+ * </pre>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+    private String chunkId;
+    private String documentId;
+    private String documentName;
+    private Integer chunkIndex;
+    private String category;
+    private Double score;
+    private String content;
+}
@@ -0,0 +1,38 @@
+package com.hrassistant.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for retrieval-only search requests.
+ *
+ * <pre>
+ * POST /api/search
+ * {
+ *   "query": "Combien de jours de congés ai-je ?",
+ *   "documentIds": ["doc-1", "doc-2"]
+ * }
+ * </pre>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchQuery {
+
+    @NotBlank(message = "La requête ne peut pas être vide")
+    @Size(max = 1000, message = "La requête ne peut pas dépasser 1000 caractères")
+    private String query;
+
+    /**
+     * Optional list of document IDs to filter the search.
+     * If null or empty, all indexed documents will be searched.
+     */
+    private List<String> documentIds;
+}
@@ -0,0 +1,27 @@
+package com.hrassistant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for the passages retrieved for one search query, best first.
+ *
+ * <pre>
+ * {
+ *   "query": "Combien de jours de congés ai-je ?",
+ *   "hits": [ { "documentId": "doc-1", "chunkIndex": 3, "score": 0.82, ... } ]
+ * }
+ * </pre>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResult {
+    private String query;
+    private List<SearchHit> hits;
+}
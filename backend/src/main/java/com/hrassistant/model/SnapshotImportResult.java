@@ -0,0 +1,12 @@
+package com.hrassistant.model;
+
+/**
+ * Outcome of a snapshot import.
+ *
+ * @param documentsImported documents added to the catalog
+ * @param documentsSkipped documents already present, left untouched with their chunks
+ * @param chunksImported chunks inserted into the vector store
+ * @param durationMs import duration in milliseconds
+ */
+public record SnapshotImportResult(
+    int documentsImported, int documentsSkipped, long chunksImported, long durationMs) {}
@@ -0,0 +1,19 @@
+package com.hrassistant.model;
+
+/**
+ * A chunk row read back from the {@code vector_store} table, including its embedding.
+ *
+ * @param id chunk identifier (primary key of {@code vector_store})
+ * @param documentId identifier of the source document
+ * @param chunkIndex position of the chunk within its document
+ * @param category HR category name of the source document (null if uncategorized)
+ * @param content chunk text
+ * @param embedding stored embedding vector (null when not loaded)
+ */
+public record StoredChunk(
+    String id,
+    String documentId,
+    int chunkIndex,
+    String category,
+    String content,
+    float[] embedding) {}
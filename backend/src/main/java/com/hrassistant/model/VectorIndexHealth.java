@@ -0,0 +1,30 @@
+package com.hrassistant.model;
+
+import java.time.Instant;
+
+/**
+ * Health of the vector index, as tracked by the maintenance scheduler.
+ *
+ * @param stats current table and index statistics
+ * @param baselineIndexBytesPerLiveTuple index bytes per live row right after the last reindex
+ *     (or the first observation), used to measure index bloat
+ * @param indexBloatFactor current index bytes per live row relative to the baseline
+ * @param vacuumDue whether the dead-tuple ratio exceeds the vacuum threshold
+ * @param reindexDue whether the index bloat exceeds the reindex threshold
+ * @param lastMaintenanceVacuum last VACUUM run by the scheduler (null if never)
+ * @param lastMaintenanceReindex last REINDEX run by the scheduler (null if never)
+ * @param searchCount vector searches timed since startup
+ * @param searchMeanLatencyMs mean vector search latency since startup
+ * @param searchMaxLatencyMs maximum vector search latency in the recent window
+ */
+public record VectorIndexHealth(
+    VectorTableStats stats,
+    double baselineIndexBytesPerLiveTuple,
+    double indexBloatFactor,
+    boolean vacuumDue,
+    boolean reindexDue,
+    Instant lastMaintenanceVacuum,
+    Instant lastMaintenanceReindex,
+    long searchCount,
+    double searchMeanLatencyMs,
+    double searchMaxLatencyMs) {}
@@ -0,0 +1,18 @@
+package com.hrassistant.model;
+
+/**
+ * First-stage representation used by the two-stage pgvector search.
+ *
+ * <p>Compressed representations keep the HNSW index small enough to stay in memory; the
+ * candidates they return are then re-ranked with the full-precision {@code embedding} column.
+ */
+public enum VectorQuantization {
+  /** Single-stage search on the full float32 vectors. */
+  NONE,
+  /** float16 vectors ({@code halfvec}), half the size of float32. */
+  HALFVEC,
+  /** One bit per dimension ({@code binary_quantize}), compared with Hamming distance. */
+  BINARY,
+  /** Matryoshka prefix of the embedding ({@code subvector}), as supported by nomic-embed-text. */
+  TRUNCATED
+}
@@ -0,0 +1,33 @@
+package com.hrassistant.model;
+
+import java.time.OffsetDateTime;
+
+/**
+ * PostgreSQL statistics of the {@code vector_store} table and its HNSW indexes.
+ *
+ * @param liveTuples estimated live rows
+ * @param deadTuples estimated dead rows not yet vacuumed
+ * @param tableSizeBytes size of the table including TOAST, excluding indexes
+ * @param indexSizeBytes total size of the HNSW indexes on the table
+ * @param lastVacuum last manual vacuum (null if never)
+ * @param lastAutovacuum last autovacuum (null if never)
+ */
+public record VectorTableStats(
+    long liveTuples,
+    long deadTuples,
+    long tableSizeBytes,
+    long indexSizeBytes,
+    OffsetDateTime lastVacuum,
+    OffsetDateTime lastAutovacuum) {
+
+  /** Share of dead rows among all rows (0 for an empty table). */
+  public double deadTupleRatio() {
+    long total = liveTuples + deadTuples;
+    return total == 0 ? 0 : (double) deadTuples / total;
+  }
+
+  /** HNSW index bytes per live row (0 for an empty table). */
+  public double indexBytesPerLiveTuple() {
+    return liveTuples == 0 ? 0 : (double) indexSizeBytes / liveTuples;
+  }
+}
@@ -4,6 +4,7 @@ import com.hrassistant.model.Document;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -12,7 +13,9 @@ public interface DocumentRepository extends JpaRepository<Document, String> {
 
     /**
      * Retrieves all distinct non-null categories.
+     * Read-only so it can be served by a read replica.
      */
+    @Transactional(readOnly = true)
     @Query("SELECT DISTINCT d.category FROM Document d WHERE d.category IS NOT NULL ORDER BY d.category")
     List<String> findDistinctCategories();
 }
@@ -0,0 +1,699 @@
+package com.hrassistant.repository;
+
+import com.hrassistant.model.HrCategory;
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.model.VectorTableStats;
+import com.hrassistant.model.VectorQuantization;
+import com.pgvector.PGvector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Direct JDBC access to the {@code vector_store} table managed by Spring AI's PgVectorStore.
+ * Used where the VectorStore API does not expose what we need (embeddings, streaming reads,
+ * searches with a precomputed query embedding, quantized indexes).
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class VectorChunkRepository {
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final long MAINTENANCE_LOCK_ID = 0x7665_6374_6f72L;
+
+    private static final String SELECT_CHUNK = """
+            SELECT id::text AS id,
+                   content,
+                   metadata->>'documentId' AS document_id,
+                   COALESCE((metadata->>'chunkIndex')::int, 0) AS chunk_index,
+                   metadata->>'category' AS category,
+                   embedding::text AS embedding
+            FROM vector_store
+            """;
+
+    private static final String SELECT_CHUNK_TEXT = """
+            SELECT id::text AS id,
+                   content,
+                   metadata->>'documentId' AS document_id,
+                   COALESCE((metadata->>'chunkIndex')::int, 0) AS chunk_index,
+                   metadata->>'category' AS category
+            FROM vector_store
+            """;
+
+    private static final String HIT_COLUMNS = """
+            id::text AS id,
+                   content,
+                   metadata->>'documentId' AS document_id,
+                   COALESCE((metadata->>'chunkIndex')::int, 0) AS chunk_index,
+                   metadata->>'category' AS category,
+                   embedding <=> ? AS distance
+            """;
+
+    private static final RowMapper<StoredChunk> CHUNK_ROW_MAPPER = (rs, rowNum) -> new StoredChunk(
+            rs.getString("id"),
+            rs.getString("document_id"),
+            rs.getInt("chunk_index"),
+            rs.getString("category"),
+            rs.getString("content"),
+            new PGvector(rs.getString("embedding")).toArray());
+
+    private static final RowMapper<StoredChunk> TEXT_CHUNK_ROW_MAPPER = (rs, rowNum) -> new StoredChunk(
+            rs.getString("id"),
+            rs.getString("document_id"),
+            rs.getInt("chunk_index"),
+            rs.getString("category"),
+            rs.getString("content"),
+            null);
+
+    private static final RowMapper<Document> HIT_ROW_MAPPER = (rs, rowNum) -> {
+        double distance = rs.getDouble("distance");
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("documentId", rs.getString("document_id"));
+        metadata.put("chunkIndex", rs.getInt("chunk_index"));
+        if (rs.getString("category") != null) {
+            metadata.put("category", rs.getString("category"));
+        }
+        metadata.put("distance", (float) distance);
+
+        return Document.builder()
+                .id(rs.getString("id"))
+                .text(rs.getString("content"))
+                .metadata(metadata)
+                .score(1.0 - distance)
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.ai.vectorstore.pgvector.dimensions:768}")
+    private int dimensions;
+
+    @Value("${hr-assistant.rag.quantization.truncated-dimensions:256}")
+    private int truncatedDimensions;
+
+    /**
+     * Streams every chunk of the vector store to the consumer without loading the table in memory.
+     * Runs in a read-only transaction so the PostgreSQL driver honours the fetch size.
+     *
+     * @param consumer Receives each chunk in turn
+     */
+    @Transactional(readOnly = true)
+    public void forEachChunk(Consumer<StoredChunk> consumer) {
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(SELECT_CHUNK);
+                    statement.setFetchSize(STREAM_FETCH_SIZE);
+                    return statement;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(CHUNK_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Retrieves all chunks of a document, ordered by chunk index.
+     *
+     * @param documentId The document ID
+     * @return The document's chunks with their embeddings
+     */
+    @Transactional(readOnly = true)
+    public List<StoredChunk> findByDocumentId(String documentId) {
+        return jdbcTemplate.query(
+                SELECT_CHUNK + " WHERE metadata->>'documentId' = ? ORDER BY chunk_index",
+                CHUNK_ROW_MAPPER,
+                documentId);
+    }
+
+    /**
+     * Retrieves all chunks of several documents, without their embeddings.
+     *
+     * @param documentIds Document identifiers
+     * @return The chunks, grouped by document and in chunk order, with a null embedding
+     */
+    @Transactional(readOnly = true)
+    public List<StoredChunk> findTextsByDocumentIds(List<String> documentIds) {
+        if (documentIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+                SELECT_CHUNK_TEXT + " WHERE metadata->>'documentId' IN (" + placeholders(documentIds.size())
+                        + ") ORDER BY document_id, chunk_index",
+                TEXT_CHUNK_ROW_MAPPER,
+                documentIds.toArray());
+    }
+
+    /**
+     * Retrieves the embeddings of the given chunks.
+     *
+     * @param chunkIds Chunk identifiers
+     * @return Embeddings keyed by chunk ID (missing chunks are absent)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, float[]> findEmbeddings(List<String> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, float[]> embeddings = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id::text AS id, embedding::text AS embedding FROM vector_store WHERE id IN ("
+                        + uuidPlaceholders(chunkIds.size()) + ")",
+                (RowCallbackHandler) rs -> embeddings.put(
+                        rs.getString("id"), new PGvector(rs.getString("embedding")).toArray()),
+                chunkIds.toArray());
+        return embeddings;
+    }
+
+    /**
+     * Retrieves chunks by position, without their embeddings.
+     *
+     * @param positions Pairs of document ID and chunk index
+     * @return The chunks that exist, with a null embedding
+     */
+    @Transactional(readOnly = true)
+    public List<StoredChunk> findByPositions(List<Map.Entry<String, Integer>> positions) {
+        if (positions.isEmpty()) {
+            return List.of();
+        }
+        // The document ID predicate lets the document ID index select the few candidate rows
+        List<String> documentIds = positions.stream().map(Map.Entry::getKey).distinct().toList();
+        List<Object> args = new ArrayList<>(documentIds);
+        for (Map.Entry<String, Integer> position : positions) {
+            args.add(position.getKey());
+            args.add(position.getValue());
+        }
+        return jdbcTemplate.query(
+                SELECT_CHUNK_TEXT + " WHERE metadata->>'documentId' IN (" + placeholders(documentIds.size()) + ")"
+                        + " AND (metadata->>'documentId', (metadata->>'chunkIndex')::int) IN ("
+                        + String.join(", ", Collections.nCopies(positions.size(), "(?, ?)")) + ")",
+                TEXT_CHUNK_ROW_MAPPER,
+                args.toArray());
+    }
+
+    /**
+     * Retrieves chunks by primary key, without their embeddings.
+     *
+     * @param chunkIds Chunk identifiers
+     * @return The chunks that exist, in no particular order, with a null embedding
+     */
+    @Transactional(readOnly = true)
+    public List<StoredChunk> findByIds(List<String> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+                SELECT_CHUNK_TEXT + " WHERE id IN (" + uuidPlaceholders(chunkIds.size()) + ")",
+                TEXT_CHUNK_ROW_MAPPER,
+                chunkIds.toArray());
+    }
+
+    /**
+     * Bulk-inserts chunks with their embeddings, with the same metadata layout as ingestion.
+     * Chunks whose ID already exists are left untouched.
+     *
+     * @param chunks Chunks to insert, embeddings included
+     * @return The number of inserted chunks
+     */
+    public int insertChunks(List<StoredChunk> chunks) {
+        int[] counts = jdbcTemplate.batchUpdate("""
+                INSERT INTO vector_store (id, content, metadata, embedding)
+                VALUES (?::uuid, ?,
+                        json_strip_nulls(json_build_object(
+                                'documentId', ?::text, 'chunkIndex', ?::int, 'category', ?::text)),
+                        ?)
+                ON CONFLICT (id) DO NOTHING
+                """,
+                chunks,
+                chunks.size(),
+                (statement, chunk) -> {
+                    statement.setString(1, chunk.id());
+                    statement.setString(2, chunk.content());
+                    statement.setString(3, chunk.documentId());
+                    statement.setInt(4, chunk.chunkIndex());
+                    statement.setString(5, chunk.category());
+                    statement.setObject(6, new PGvector(chunk.embedding()));
+                })[0];
+        int inserted = 0;
+        for (int count : counts) {
+            inserted += Math.max(count, 0);
+        }
+        return inserted;
+    }
+
+    /**
+     * Samples random chunks, used as realistic queries when measuring recall.
+     *
+     * @param count Number of chunks to sample
+     * @return The sampled chunks with their embeddings
+     */
+    @Transactional(readOnly = true)
+    public List<StoredChunk> sample(int count) {
+        return jdbcTemplate.query(SELECT_CHUNK + " ORDER BY random() LIMIT ?", CHUNK_ROW_MAPPER, count);
+    }
+
+    /**
+     * Nearest-neighbour search with a precomputed query embedding.
+     *
+     * With {@link VectorQuantization#NONE} the HNSW index on the full vectors is used directly.
+     * Otherwise a first stage retrieves {@code candidates} rows through the compressed index, and
+     * a second stage re-ranks them by exact cosine distance on the full-precision vectors.
+     *
+     * @param embedding The query embedding
+     * @param quantization First-stage representation
+     * @param topK Maximum number of results
+     * @param candidates Number of first-stage candidates (ignored for NONE)
+     * @param minScore Minimum cosine similarity
+     * @param documentIds Optional document ID filter (null or empty means all documents)
+     * @param category Optional HR category; restricts the search to that category's partial index
+     *                 when it exists, otherwise filters the shared index with an iterative scan
+     * @return Matching chunks, best first, with score and distance set
+     */
+    @Transactional(readOnly = true)
+    public List<Document> search(float[] embedding, VectorQuantization quantization, int topK, int candidates,
+                                 double minScore, List<String> documentIds, HrCategory category) {
+        PGvector query = new PGvector(embedding);
+        String filter = where(documentIds, category);
+        List<Object> args = new ArrayList<>();
+
+        if (!filter.isEmpty()) {
+            // A filtered HNSW scan drops the rows outside the filter from its ef_search candidates:
+            // keep scanning the index until enough rows pass (the outer ORDER BY restores the order)
+            jdbcTemplate.execute("SET LOCAL hnsw.iterative_scan = relaxed_order");
+        }
+
+        String sql;
+        if (quantization == VectorQuantization.NONE) {
+            sql = "SELECT * FROM (SELECT " + HIT_COLUMNS + " FROM vector_store" + filter
+                    + " ORDER BY distance LIMIT ?) hits WHERE distance <= ? ORDER BY distance";
+            args.add(query);
+            addFilterArgs(args, documentIds);
+            args.add(topK);
+            args.add(1.0 - minScore);
+        } else {
+            // The HNSW index returns at most ef_search rows: widen it to the candidate count
+            setLocalEfSearch(Math.max(candidates, topK));
+            sql = "SELECT * FROM (SELECT " + HIT_COLUMNS + " FROM (SELECT id, content, metadata, embedding"
+                    + " FROM vector_store" + filter
+                    + " ORDER BY " + firstStageOrder(quantization) + " LIMIT ?) candidates) reranked"
+                    + " WHERE distance <= ? ORDER BY distance LIMIT ?";
+            args.add(query);
+            addFilterArgs(args, documentIds);
+            args.add(query);
+            args.add(Math.max(candidates, topK));
+            args.add(1.0 - minScore);
+            args.add(topK);
+        }
+
+        return jdbcTemplate.query(sql, HIT_ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Ranks a given set of chunks by exact cosine similarity to the query, looking them up by
+     * primary key.
+     *
+     * @param embedding The query embedding
+     * @param chunkIds Chunks to rank
+     * @param topK Maximum number of results
+     * @param minScore Minimum cosine similarity
+     * @param documentIds Optional document ID filter (null or empty means all documents)
+     * @return Matching chunks, best first, with score and distance set
+     */
+    @Transactional(readOnly = true)
+    public List<Document> rankChunks(float[] embedding, List<String> chunkIds, int topK, double minScore,
+                                     List<String> documentIds) {
+        if (chunkIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(new PGvector(embedding));
+        args.addAll(chunkIds);
+        addFilterArgs(args, documentIds);
+        args.add(topK);
+        args.add(1.0 - minScore);
+
+        String filter = where(documentIds, null);
+        return jdbcTemplate.query(
+                "SELECT * FROM (SELECT " + HIT_COLUMNS + " FROM vector_store WHERE id IN ("
+                        + uuidPlaceholders(chunkIds.size()) + ")"
+                        + (filter.isEmpty() ? "" : " AND" + filter.substring(" WHERE".length()))
+                        + " ORDER BY distance LIMIT ?) hits WHERE distance <= ? ORDER BY distance",
+                HIT_ROW_MAPPER,
+                args.toArray());
+    }
+
+    /**
+     * Exact nearest-neighbour search: index scans are disabled so PostgreSQL compares every
+     * (filtered) row. Used as ground truth for recall measurements.
+     *
+     * @param embedding The query embedding
+     * @param topK Maximum number of results
+     * @param documentIds Optional document ID filter (null or empty means all documents)
+     * @return Matching chunks, best first, with score and distance set
+     */
+    @Transactional(readOnly = true)
+    public List<Document> exactSearch(float[] embedding, int topK, List<String> documentIds) {
+        // A minimum similarity of -1 (the lowest cosine similarity) keeps every row
+        return exactSearch(embedding, topK, -1.0, documentIds, null);
+    }
+
+    /**
+     * Exact nearest-neighbour search over the filtered rows. With index scans disabled the HNSW
+     * indexes cannot be used (they only support index scans), while the document ID B-tree is
+     * still read through a bitmap scan, so only the selected chunks are compared.
+     *
+     * @param embedding The query embedding
+     * @param topK Maximum number of results
+     * @param minScore Minimum cosine similarity
+     * @param documentIds Optional document ID filter (null or empty means all documents)
+     * @param category Optional HR category
+     * @return Matching chunks, best first, with score and distance set
+     */
+    @Transactional(readOnly = true)
+    public List<Document> exactSearch(float[] embedding, int topK, double minScore,
+                                      List<String> documentIds, HrCategory category) {
+        jdbcTemplate.execute("SET LOCAL enable_indexscan = off");
+
+        List<Object> args = new ArrayList<>();
+        args.add(new PGvector(embedding));
+        addFilterArgs(args, documentIds);
+        args.add(topK);
+        args.add(1.0 - minScore);
+
+        return jdbcTemplate.query(
+                "SELECT * FROM (SELECT " + HIT_COLUMNS + " FROM vector_store" + where(documentIds, category)
+                        + " ORDER BY distance LIMIT ?) hits WHERE distance <= ? ORDER BY distance",
+                HIT_ROW_MAPPER,
+                args.toArray());
+    }
+
+    /**
+     * Creates the HNSW index backing a first-stage representation, if missing.
+     * Built concurrently so ingestion is not blocked; must not run inside a transaction.
+     *
+     * @param quantization The representation to index (NONE is managed by Spring AI)
+     */
+    public void createQuantizedIndex(VectorQuantization quantization) {
+        String definition = switch (quantization) {
+            case NONE -> null;
+            case HALFVEC -> "((embedding::halfvec(" + dimensions + ")) halfvec_cosine_ops)";
+            case BINARY -> "((binary_quantize(embedding)::bit(" + dimensions + ")) bit_hamming_ops)";
+            case TRUNCATED -> "((subvector(embedding, 1, " + truncatedDimensions + ")::vector("
+                    + truncatedDimensions + ")) vector_cosine_ops)";
+        };
+        if (definition == null) {
+            return;
+        }
+
+        log.info("Ensuring quantized vector index {} exists", indexName(quantization));
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indexName(quantization)
+                + " ON vector_store USING hnsw " + definition);
+    }
+
+    /**
+     * Creates a B-tree index on the document ID, if missing, so document-filtered exact scans
+     * read only the selected chunks. Built concurrently; must not run inside a transaction.
+     */
+    public void createDocumentIdIndex() {
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS vector_store_document_id_idx"
+                + " ON vector_store ((metadata->>'documentId'))");
+        log.info("Ensured document ID index on vector_store");
+    }
+
+    /**
+     * Creates one partial HNSW index per HR category, if missing. A category-scoped search
+     * then walks a graph holding only that category's chunks instead of filtering the full one.
+     * Built concurrently so ingestion is not blocked; must not run inside a transaction.
+     */
+    public void createCategoryIndexes() {
+        for (HrCategory category : HrCategory.values()) {
+            jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + categoryIndexName(category)
+                    + " ON vector_store USING hnsw (embedding vector_cosine_ops)"
+                    + " WHERE " + categoryPredicate(category));
+        }
+        log.info("Ensured per-category vector indexes for {} categories", HrCategory.values().length);
+    }
+
+    /**
+     * Tags a document's chunks that have no category yet.
+     *
+     * @param documentId The document ID
+     * @param category The HR category to write into the chunk metadata
+     * @return The number of updated chunks
+     */
+    public int tagUncategorizedChunks(String documentId, HrCategory category) {
+        return jdbcTemplate.update("""
+                UPDATE vector_store
+                SET metadata = jsonb_set(metadata::jsonb, '{category}', to_jsonb(?::text))::json
+                WHERE metadata->>'documentId' = ? AND metadata->>'category' IS NULL
+                """, category.name(), documentId);
+    }
+
+    /**
+     * Reads the table statistics PostgreSQL keeps for {@code vector_store}.
+     *
+     * @return Live/dead row estimates, sizes and vacuum times
+     */
+    public VectorTableStats tableStats() {
+        return jdbcTemplate.queryForObject("""
+                SELECT s.n_live_tup,
+                       s.n_dead_tup,
+                       pg_table_size(s.relid) AS table_size,
+                       (SELECT COALESCE(sum(pg_relation_size(i.indexrelid)), 0)
+                        FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid JOIN pg_am a ON a.oid = c.relam
+                        WHERE i.indrelid = s.relid AND a.amname = 'hnsw') AS index_size,
+                       s.last_vacuum,
+                       s.last_autovacuum
+                FROM pg_stat_user_tables s
+                WHERE s.relname = 'vector_store'
+                """,
+                (rs, rowNum) -> new VectorTableStats(
+                        rs.getLong("n_live_tup"),
+                        rs.getLong("n_dead_tup"),
+                        rs.getLong("table_size"),
+                        rs.getLong("index_size"),
+                        timestamp(rs, "last_vacuum"),
+                        timestamp(rs, "last_autovacuum")));
+    }
+
+    /**
+     * @return Names of the HNSW indexes on {@code vector_store} (full, quantized and per-category)
+     */
+    public List<String> hnswIndexNames() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid JOIN pg_am a ON a.oid = c.relam
+                WHERE i.indrelid = 'vector_store'::regclass AND a.amname = 'hnsw'
+                ORDER BY c.relname
+                """, String.class);
+    }
+
+    /**
+     * Maintenance statements, run on the connection holding the maintenance lock.
+     */
+    public interface MaintenanceSession {
+
+        /**
+         * Vacuums and analyzes {@code vector_store}.
+         */
+        void vacuumAnalyze();
+
+        /**
+         * Rebuilds an index without blocking writes.
+         *
+         * @param indexName An index name, as returned by {@link #hnswIndexNames()}
+         */
+        void reindexConcurrently(String indexName);
+    }
+
+    /**
+     * Runs maintenance while holding a PostgreSQL advisory lock, so only one application instance
+     * maintains the index at a time. The lock belongs to a database session, so the maintenance
+     * statements run on the same connection. Must not run inside a transaction.
+     *
+     * @param action The maintenance action
+     * @return false if another instance holds the lock (the action is not run)
+     */
+    public boolean runWithMaintenanceLock(Consumer<MaintenanceSession> action) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (var statement = connection.createStatement()) {
+                try (ResultSet rs = statement.executeQuery("SELECT pg_try_advisory_lock(" + MAINTENANCE_LOCK_ID + ")")) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        return false;
+                    }
+                }
+                try {
+                    action.accept(new MaintenanceSession() {
+                        @Override
+                        public void vacuumAnalyze() {
+                            execute(statement, "VACUUM (ANALYZE) vector_store");
+                        }
+
+                        @Override
+                        public void reindexConcurrently(String indexName) {
+                            execute(statement, "REINDEX INDEX CONCURRENTLY " + indexName);
+                        }
+                    });
+                    return true;
+                } finally {
+                    statement.execute("SELECT pg_advisory_unlock(" + MAINTENANCE_LOCK_ID + ")");
+                }
+            }
+        }));
+    }
+
+    /**
+     * Creates the table keeping the HNSW index size measured right after the last reindex, if missing.
+     */
+    public void createIndexBaselineTable() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS vector_index_baseline (
+                    id int PRIMARY KEY,
+                    bytes_per_live_tuple double precision NOT NULL,
+                    measured_at timestamptz NOT NULL
+                )
+                """);
+    }
+
+    /**
+     * @return HNSW index bytes per live row right after the last reindex, or null if never measured
+     */
+    public Double findIndexBaseline() {
+        List<Double> baseline = jdbcTemplate.queryForList(
+                "SELECT bytes_per_live_tuple FROM vector_index_baseline WHERE id = 1", Double.class);
+        return baseline.isEmpty() ? null : baseline.get(0);
+    }
+
+    /**
+     * Records the HNSW index bytes per live row measured right after a reindex.
+     *
+     * @param bytesPerLiveTuple The measured size
+     */
+    public void saveIndexBaseline(double bytesPerLiveTuple) {
+        jdbcTemplate.update("""
+                INSERT INTO vector_index_baseline (id, bytes_per_live_tuple, measured_at) VALUES (1, ?, now())
+                ON CONFLICT (id) DO UPDATE
+                SET bytes_per_live_tuple = EXCLUDED.bytes_per_live_tuple, measured_at = EXCLUDED.measured_at
+                """, bytesPerLiveTuple);
+    }
+
+    /**
+     * @param quantization A first-stage representation
+     * @return The name of the HNSW index backing it
+     */
+    public String indexName(VectorQuantization quantization) {
+        return switch (quantization) {
+            case NONE -> "spring_ai_vector_index";
+            case HALFVEC -> "vector_store_halfvec_idx";
+            case BINARY -> "vector_store_bit_idx";
+            case TRUNCATED -> "vector_store_subvector_" + truncatedDimensions + "_idx";
+        };
+    }
+
+    /**
+     * @param indexName An index name
+     * @return The on-disk size of the index in bytes, or null if it does not exist
+     */
+    public Long indexSizeBytes(String indexName) {
+        return jdbcTemplate.queryForObject(
+                "SELECT pg_relation_size(to_regclass(?))", Long.class, indexName);
+    }
+
+    /**
+     * @param quantization A first-stage representation
+     * @return Bytes stored per vector by that representation
+     */
+    public int bytesPerVector(VectorQuantization quantization) {
+        return switch (quantization) {
+            case NONE -> dimensions * Float.BYTES;
+            case HALFVEC -> dimensions * 2;
+            case BINARY -> (dimensions + 7) / 8;
+            case TRUNCATED -> truncatedDimensions * Float.BYTES;
+        };
+    }
+
+    /**
+     * First-stage ORDER BY expression. It must match the index expression exactly
+     * for PostgreSQL to use the compressed index.
+     */
+    private String firstStageOrder(VectorQuantization quantization) {
+        return switch (quantization) {
+            case NONE -> "embedding <=> ?";
+            case HALFVEC -> "embedding::halfvec(" + dimensions + ") <=> ?::vector::halfvec(" + dimensions + ")";
+            case BINARY -> "binary_quantize(embedding)::bit(" + dimensions + ") <~> binary_quantize(?::vector)";
+            case TRUNCATED -> "subvector(embedding, 1, " + truncatedDimensions + ")::vector(" + truncatedDimensions
+                    + ") <=> subvector(?::vector, 1, " + truncatedDimensions + ")::vector(" + truncatedDimensions + ")";
+        };
+    }
+
+    private void setLocalEfSearch(int efSearch) {
+        jdbcTemplate.execute("SET LOCAL hnsw.ef_search = " + Math.min(efSearch, 1000));
+    }
+
+    /**
+     * Builds the WHERE clause for the optional filters. The category is inlined as a literal
+     * (it is an enum name) so the predicate matches the partial index definition exactly,
+     * which PostgreSQL requires to use a partial index with a prepared statement.
+     */
+    private static String where(List<String> documentIds, HrCategory category) {
+        List<String> conditions = new ArrayList<>();
+        if (documentIds != null && !documentIds.isEmpty()) {
+            conditions.add("metadata->>'documentId' IN (" + placeholders(documentIds.size()) + ")");
+        }
+        if (category != null) {
+            conditions.add(categoryPredicate(category));
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static OffsetDateTime timestamp(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, OffsetDateTime.class);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String uuidPlaceholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?::uuid"));
+    }
+
+    private static String categoryPredicate(HrCategory category) {
+        return "metadata->>'category' = '" + category.name() + "'";
+    }
+
+    private static void execute(Statement statement, String sql) {
+        try {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Vector index maintenance", sql, e);
+        }
+    }
+
+    private static String categoryIndexName(HrCategory category) {
+        return "vector_store_hnsw_" + category.name().toLowerCase() + "_idx";
+    }
+
+    private static void addFilterArgs(List<Object> args, List<String> documentIds) {
+        if (documentIds != null) {
+            args.addAll(documentIds);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.hrassistant.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Generation of the response cache, part of every cache key, so invalidating the whole cache is
+ * a single atomic INCR instead of listing and deleting every entry while Redis blocks.
+ *
+ * <p>Each node keeps the current generation locally; it is refreshed when another node announces
+ * a full invalidation and periodically. Entries of older generations are never read again and
+ * are reclaimed in the background by SCAN and UNLINK, at most {@code max-keys-per-second}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheGeneration {
+
+    private static final String GENERATION_KEY = "hr-assistant:cache-generation";
+    private static final String SEPARATOR = ":";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${hr-assistant.cache.sweeper.batch-size:100}")
+    private int batchSize;
+
+    @Value("${hr-assistant.cache.sweeper.max-keys-per-second:1000}")
+    private int maxKeysPerSecond;
+
+    private final ExecutorService sweeper = Executors.newSingleThreadExecutor(
+            runnable -> Thread.ofPlatform().name("cache-sweeper").daemon(true).unstarted(runnable));
+    private final AtomicBoolean sweepPending = new AtomicBoolean();
+    private volatile long generation;
+
+    @PostConstruct
+    public void start() {
+        refresh();
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * @return The current generation
+     */
+    public long current() {
+        return generation;
+    }
+
+    /**
+     * @return Prefix of the keys of the current generation
+     */
+    public String keyPrefix() {
+        return CacheService.CACHE_KEY_PREFIX + generation + SEPARATOR;
+    }
+
+    /**
+     * @param key Redis key of a cached response
+     * @return Whether the entry belongs to the current generation
+     */
+    public boolean isCurrent(String key) {
+        return key.startsWith(keyPrefix());
+    }
+
+    /**
+     * Starts a new generation, logically invalidating every cached response, and schedules
+     * the cleanup of the previous ones.
+     *
+     * @return The new generation
+     */
+    public long advance() {
+        Long next = redisTemplate.opsForValue().increment(GENERATION_KEY);
+        update(next != null ? next : generation + 1);
+        return generation;
+    }
+
+    /**
+     * Reads the generation from Redis, picking up invalidations made by other nodes.
+     */
+    @Scheduled(fixedDelayString = "${hr-assistant.cache.generation.refresh-interval-ms:5000}")
+    public void refresh() {
+        try {
+            String stored = redisTemplate.opsForValue().get(GENERATION_KEY);
+            update(stored != null ? Long.parseLong(stored) : 0);
+        } catch (Exception e) {
+            log.warn("Failed to read cache generation: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sweeps old generations periodically, catching entries written by requests that started
+     * before an invalidation.
+     */
+    @Scheduled(fixedDelayString = "${hr-assistant.cache.sweeper.interval-ms:600000}",
+            initialDelayString = "${hr-assistant.cache.sweeper.interval-ms:600000}")
+    public void scheduleSweep() {
+        if (sweepPending.compareAndSet(false, true)) {
+            sweeper.execute(this::sweep);
+        }
+    }
+
+    private synchronized void update(long stored) {
+        if (stored > generation) {
+            log.info("Cache generation {} -> {}", generation, stored);
+            generation = stored;
+            scheduleSweep();
+        }
+    }
+
+    /** Unlinks the entries of older generations, in batches paced to {@code max-keys-per-second}. */
+    private void sweep() {
+        sweepPending.set(false);
+        long current = generation;
+        long start = System.currentTimeMillis();
+        long swept = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(CacheService.CACHE_KEY_PREFIX + "*")
+                .count(batchSize)
+                .build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (generationOf(key) < current) {
+                    batch.add(key);
+                }
+                if (batch.size() == batchSize) {
+                    swept += unlink(batch);
+                }
+            }
+            swept += unlink(batch);
+            log.info("Cache sweep: {} entries of generations before {} removed in {}ms",
+                    swept, current, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Cache sweep failed after {} entries: {}", swept, e.getMessage());
+        }
+    }
+
+    private int unlink(List<String> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int count = batch.size();
+        redisTemplate.unlink(batch);
+        batch.clear();
+        Thread.sleep(count * 1000L / maxKeysPerSecond);
+        return count;
+    }
+
+    /**
+     * @param key Redis key of a cached response
+     * @return The generation the entry belongs to, or -1 if the key has none
+     */
+    static long generationOf(String key) {
+        String rest = key.substring(CacheService.CACHE_KEY_PREFIX.length());
+        int separator = rest.indexOf(SEPARATOR);
+        try {
+            return separator < 0 ? -1 : Long.parseLong(rest.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -1,35 +1,139 @@
 package com.hrassistant.service;
 
+import com.hrassistant.model.AnswerDependencies;
+import com.hrassistant.model.CacheStats;
 import com.hrassistant.model.CachedResponse;
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.repository.VectorChunkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import org.springframework.util.CollectionUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Service for semantic caching of LLM responses.
  * Uses embeddings to find semantically similar questions and returns cached responses.
+ *
+ * Entries are keyed by a hash of the normalized question (lower-cased, accents and repeated
+ * whitespace removed, trailing punctuation dropped), so a repeated question is answered with a
+ * single GET and no embedding call, and caching the same question twice overwrites one entry.
+ *
+ * Document changes only evict the answers they can affect: each entry is listed in a Redis set
+ * per document its context came from, so deleting or renaming a document evicts the answers
+ * citing it, and a new document evicts the answers whose question one of its chunks matches at
+ * least as well as the weakest passage the answer used.
+ *
+ * An answer is only cached if none of its documents was deleted or renamed since its lookup
+ * started (see {@link CacheTarget}): each change bumps a counter and stamps the document with
+ * it, and the answer is dropped if one of its documents carries a later stamp, before or right
+ * after it is written.
+ *
+ * Questions asked with a document filter are cached in a scope keyed by a hash of the sorted
+ * document IDs, only matched against questions of the same scope, and listed under every
+ * filtered document so they are evicted when any of them changes; new documents never affect
+ * them.
+ *
+ * Keys also carry the cache generation (see {@link CacheGeneration}): invalidating everything
+ * starts a new generation, and older entries are reclaimed in the background.
+ *
+ * The cache holds at most {@code max-entries} answers, admitted TinyLFU-style: lookups feed a
+ * frequency sketch, only questions asked at least {@code admission.min-frequency} times are
+ * cached, and when full a new answer replaces the entry closest to expiry (the least recently
+ * used one) only if it is asked more often. Hits extend an entry's TTL, up to
+ * {@code max-ttl-seconds} after it was cached. Entries are counted in a sorted set scored by
+ * expiry time, so expired answers no longer count toward the bound.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CacheService {
 
-    private static final String CACHE_KEY_PREFIX = "hr-assistant:cache:";
-
-    private final RedisTemplate<String, CachedResponse> redisTemplate;
-    private final EmbeddingModel embeddingModel;
+    // v2: binary hashes (see CachedResponseCodec); entries of the former JSON layout expire on their own.
+    // Followed by the generation, the scope of filtered questions, then the question hash
+    static final String CACHE_KEY_PREFIX = "hr-assistant:cache:v2:";
+    private static final String DEPENDENCY_KEY_PREFIX = "hr-assistant:cache-deps:";
+    // Count of document deletions and renames, and the count at each document's last change
+    private static final String DOCUMENT_CHANGES_KEY = "hr-assistant:cache-document-changes";
+    private static final String DOCUMENT_CHANGED_PREFIX = "hr-assistant:cache-document-changed:";
+    // Sorted set of the current generation's keys, scored by expiry time (epoch millis)
+    private static final String ENTRIES_KEY_PREFIX = "hr-assistant:cache-entries:";
+    // Drops expired entries, then adds the key if there is room or the given victim could be
+    // removed, in one step so concurrent admissions never exceed the bound.
+    // Returns {1, ""} when admitted, {0, oldest entry} otherwise
+    private static final RedisScript<List> ADMIT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[1])
+            if redis.call('ZCARD', KEYS[1]) < tonumber(ARGV[2])
+                    or (ARGV[5] ~= '' and redis.call('ZREM', KEYS[1], ARGV[5]) == 1) then
+                redis.call('ZADD', KEYS[1], ARGV[4], ARGV[3])
+                redis.call('PEXPIRE', KEYS[1], ARGV[6])
+                return {1, ''}
+            end
+            local oldest = redis.call('ZRANGE', KEYS[1], 0, 0)
+            return {0, oldest[1] or ''}
+            """, List.class);
+    private static final int ADMISSION_ATTEMPTS = 3;
+    // Writes the fields of an entry and its TTL in one step, so it never lives without a TTL
+    private static final RedisScript<Long> WRITE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2], ARGV[3], ARGV[4], ARGV[5], ARGV[6])
+            return redis.call('EXPIRE', KEYS[1], ARGV[7])
+            """, Long.class);
+    /** Timer of the response cache lookups, exact and semantic. */
+    public static final String LOOKUP_TIMER = "hr_assistant.cache.lookup";
+
+    private static final int CANDIDATE_COUNT = 3;
+    private static final int SCOPE_HASH_LENGTH = 16;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s?!.;:]+$");
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final VectorChunkRepository vectorChunkRepository;
+    private final QueryEmbeddingService queryEmbeddingService;
+    private final SemanticCacheIndex semanticCacheIndex;
+    private final CacheGeneration cacheGeneration;
+    private final FrequentQuestions frequentQuestions;
+    private final ResponseNearCache nearCache;
+    private final MeterRegistry meterRegistry;
 
     @Value("${hr-assistant.cache.enabled:true}")
     private boolean cacheEnabled;
@@ -40,6 +144,47 @@ public class CacheService {
     @Value("${hr-assistant.cache.similarity-threshold:0.85}")
     private double similarityThreshold;
 
+    @Value("${hr-assistant.rag.similarity-threshold:0.3}")
+    private double retrievalThreshold;
+
+    @Value("${hr-assistant.cache.invalidation.candidates-per-chunk:50}")
+    private int candidatesPerChunk;
+
+    @Value("${hr-assistant.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${hr-assistant.cache.max-ttl-seconds:86400}")
+    private int maxTtlSeconds;
+
+    @Value("${hr-assistant.cache.admission.min-frequency:2}")
+    private int minAdmissionFrequency;
+
+    /**
+     * Where an answer will be cached, captured when its lookup starts, before the answer is
+     * generated from the corpus.
+     *
+     * @param key Cache key of the question in the generation current at lookup
+     * @param documentChanges Number of document deletions and renames at lookup
+     * @param questionEmbedding Embedding of the question computed by the lookup, or null if none was
+     */
+    public record CacheTarget(String key, long documentChanges, float[] questionEmbedding) {}
+
+    private FrequencySketch sketch;
+    private Counter admitted;
+    private Counter rejected;
+    private Counter evictions;
+
+    @PostConstruct
+    public void init() {
+        sketch = new FrequencySketch(maxEntries);
+        admitted = admissionCounter("admitted");
+        rejected = admissionCounter("rejected");
+        evictions = Counter.builder("hr_assistant.cache.evictions")
+                .description("Cached responses evicted to make room for more frequent questions")
+                .register(meterRegistry);
+        nearCache.onNewDocument(this::onNewDocumentElsewhere);
+    }
+
     /**
      * Searches for a cached response that is semantically similar to the given question.
      * Uses cosine similarity to compare question embeddings.
@@ -48,46 +193,82 @@ public class CacheService {
      * @return Optional containing the cached response if a similar question was found
      */
     public Optional<CachedResponse> findSimilarCached(String question) {
+        return findSimilarCached(question, List.of());
+    }
+
+    /**
+     * Searches for a cached response to a similar question asked with the same document filter.
+     *
+     * @param question The user's question
+     * @param documentIds The document filter (null or empty for none)
+     * @return Optional containing the cached response if a similar question was found
+     */
+    public Optional<CachedResponse> findSimilarCached(String question, List<String> documentIds) {
+        return findSimilarCached(question, documentIds, embedding -> { });
+    }
+
+    /**
+     * Searches for a cached response to a similar question asked with the same document filter,
+     * handing over the question's embedding if one was computed (no exact match).
+     *
+     * @param question The user's question
+     * @param documentIds The document filter (null or empty for none)
+     * @param embeddingSink Receives the question's embedding, so callers need not compute it again
+     * @return Optional containing the cached response if a similar question was found
+     */
+    public Optional<CachedResponse> findSimilarCached(String question, List<String> documentIds,
+                                                      Consumer<float[]> embeddingSink) {
         if (!cacheEnabled) {
             log.debug("Cache is disabled, skipping cache lookup");
             return Optional.empty();
         }
+        String scope = scopeFor(documentIds);
+        return Timer.builder(LOOKUP_TIMER).register(meterRegistry)
+                .record(() -> lookup(question, scope, embeddingSink));
+    }
 
+    private Optional<CachedResponse> lookup(String question, String scope, Consumer<float[]> embeddingSink) {
         try {
+            // Exact match on the normalized question: no embedding needed
+            String exactKey = keyFor(question, scope);
+            sketch.increment(identityOf(exactKey));
+            Optional<CachedResponse> exact = read(exactKey);
+            if (exact.isPresent()) {
+                log.info("Cache HIT (exact) for question: {}", question);
+                recordFrequent(scope, question);
+                return exact;
+            }
+
             // Generate embedding for the incoming question
             float[] queryEmbedding = generateEmbedding(question);
+            embeddingSink.accept(queryEmbedding);
 
-            // Scan all cached responses
-            Set<String> keys = redisTemplate.keys(CACHE_KEY_PREFIX + "*");
-            if (CollectionUtils.isEmpty(keys)) {
-                log.debug("Cache is empty, no cached responses to compare");
-                return Optional.empty();
-            }
-
-            double bestSimilarity = 0.0;
-            CachedResponse bestMatch = null;
+            // Closest cached questions from the in-process index; only the winners are read from Redis
+            List<SemanticCacheIndex.Match> matches =
+                    semanticCacheIndex.nearest(queryEmbedding, CANDIDATE_COUNT, similarityThreshold, scope);
 
-            for (String key : keys) {
-                CachedResponse cached = redisTemplate.opsForValue().get(key);
-                if (cached == null || cached.getQuestionEmbedding() == null) {
+            for (SemanticCacheIndex.Match match : matches) {
+                if (!cacheGeneration.isCurrent(match.key())) {
+                    // Indexed before a full invalidation by another node
+                    semanticCacheIndex.remove(match.key());
                     continue;
                 }
-
-                double similarity = cosineSimilarity(queryEmbedding, cached.getQuestionEmbedding());
-
-                if (similarity > similarityThreshold && similarity > bestSimilarity) {
-                    bestSimilarity = similarity;
-                    bestMatch = cached;
+                Optional<CachedResponse> cached = read(match.key());
+                if (cached.isEmpty()) {
+                    // Expired or invalidated since the index was built
+                    semanticCacheIndex.remove(match.key());
+                    nearCache.evict(match.key());
+                    continue;
                 }
-            }
-
-            if (bestMatch != null) {
+                sketch.increment(identityOf(match.key()));
+                recordFrequent(scope, cached.get().getQuestion());
                 log.info("Cache HIT: similarity={} for question: {}",
-                        String.format("%.4f", bestSimilarity), question);
-                return Optional.of(bestMatch);
+                        String.format("%.4f", match.score()), question);
+                return cached;
             }
 
-            log.debug("Cache MISS: no similar question found (checked {} entries)", keys.size());
+            nearCache.recordMiss();
+            log.debug("Cache MISS: no similar question found ({} stale candidates)", matches.size());
             return Optional.empty();
 
         } catch (Exception e) {
@@ -96,21 +277,97 @@ public class CacheService {
         }
     }
 
+    /**
+     * Reads the response cached under a key, without counting a lookup, feeding the admission
+     * sketch or extending the entry's TTL. Used to wait for an answer generated by another node.
+     *
+     * @param key Cache key of the question (see {@link #cacheKey})
+     * @return Optional containing the cached response if present
+     */
+    public Optional<CachedResponse> peek(String key) {
+        if (!cacheEnabled) {
+            return Optional.empty();
+        }
+        try {
+            Optional<CachedResponse> local = nearCache.get(key);
+            if (local.isPresent()) {
+                return local;
+            }
+            Object body = redisTemplate.opsForHash().get(key, CachedResponseCodec.BODY_FIELD);
+            return body == null ? Optional.empty() : Optional.of(CachedResponseCodec.decodeBody((byte[]) body));
+        } catch (Exception e) {
+            log.debug("Cache peek failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     /**
      * Caches a response for future semantic matching.
      *
      * @param question The user's question
      * @param response The complete LLM response
      * @param sources  The sources used to generate the response
+     * @param dependencies The documents and passage scores the response was built from
+     */
+    public void cacheResponse(String question, String response, List<String> sources,
+                              AnswerDependencies dependencies) {
+        cacheResponse(cacheTarget(cacheKey(question, List.of()), null), question, response, sources, dependencies,
+                List.of(), false);
+    }
+
+    /**
+     * Caches a response to a question asked with a document filter, if admitted, under the key
+     * computed when its lookup started: an answer generated from the corpus of an older
+     * generation is not cached (or, if the generation changes while writing, lands in the old
+     * generation and is swept), nor one built from a document deleted or renamed meanwhile.
+     *
+     * @param target Where to cache the response, captured when its lookup started (see {@link #cacheTarget})
+     * @param question The user's question
+     * @param response The complete LLM response
+     * @param sources  The sources used to generate the response
+     * @param dependencies The documents and passage scores the response was built from
+     * @param documentIds The document filter (null or empty for none)
+     * @param pinned Whether to cache the response regardless of the question's frequency (cache warming)
      */
-    public void cacheResponse(String question, String response, List<String> sources) {
+    public void cacheResponse(CacheTarget target, String question, String response, List<String> sources,
+                              AnswerDependencies dependencies, List<String> documentIds, boolean pinned) {
+        String key = target.key();
         if (!cacheEnabled) {
             log.debug("Cache is disabled, skipping cache storage");
             return;
         }
+        if (!cacheGeneration.isCurrent(key)) {
+            log.debug("Cache invalidated while answering, not caching: {}", question);
+            return;
+        }
 
         try {
-            float[] embedding = generateEmbedding(question);
+            String scope = scopeFor(documentIds);
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+                log.debug("Response already cached for question: {}", question);
+                return;
+            }
+            // A filtered answer depends on every filtered document, cited or not
+            Set<String> dependsOn = new LinkedHashSet<>(dependencies.documentIds());
+            if (documentIds != null) {
+                dependsOn.addAll(documentIds);
+            }
+            if (changedSince(dependsOn, target.documentChanges())) {
+                log.debug("A document changed while answering, not caching: {}", question);
+                return;
+            }
+
+            if (!admit(key, pinned)) {
+                rejected.increment();
+                log.debug("Response not admitted to the cache (infrequent question): {}", question);
+                return;
+            }
+            admitted.increment();
+
+            // Computed by the lookup, except for warming, which skips it
+            float[] embedding = target.questionEmbedding() != null
+                    ? target.questionEmbedding()
+                    : generateEmbedding(question);
 
             CachedResponse cached = CachedResponse.builder()
                     .question(question)
@@ -120,9 +377,29 @@ public class CacheService {
                     .cachedAt(LocalDateTime.now())
                     .build();
 
-            String key = CACHE_KEY_PREFIX + UUID.randomUUID();
-
-            redisTemplate.opsForValue().set(key, cached, Duration.ofSeconds(ttlSeconds));
+            redisTemplate.execute(WRITE_SCRIPT, List.of(key),
+                    bytes(CachedResponseCodec.EMBEDDING_FIELD), CachedResponseCodec.encodeEmbedding(embedding),
+                    bytes(CachedResponseCodec.BODY_FIELD), CachedResponseCodec.encodeBody(cached),
+                    bytes(CachedResponseCodec.MIN_SCORE_FIELD), CachedResponseCodec.encodeScore(dependencies.minScore()),
+                    bytes(String.valueOf(ttlSeconds)));
+            for (String documentId : dependsOn) {
+                // Outlives the entry, whose TTL hits may extend up to max-ttl-seconds
+                String dependencyKey = DEPENDENCY_KEY_PREFIX + documentId;
+                stringRedisTemplate.opsForSet().add(dependencyKey, key);
+                stringRedisTemplate.expire(dependencyKey, Duration.ofSeconds(maxTtlSeconds));
+            }
+            // Checked again once listed: a change stamped before this check finds the entry in
+            // the dependency sets, a later one is seen here
+            if (changedSince(dependsOn, target.documentChanges())) {
+                evict(List.of(key));
+                log.debug("A document changed while caching, entry dropped: {}", question);
+                return;
+            }
+            semanticCacheIndex.add(key, embedding);
+            nearCache.put(key, cached);
+            if (!pinned) {
+                recordFrequent(scope, question);
+            }
 
             log.info("Cached response for question: {} (TTL: {}s)", question, ttlSeconds);
 
@@ -133,63 +410,463 @@ public class CacheService {
     }
 
     /**
-     * Invalidates all cached responses.
-     * Called when documents are uploaded or deleted.
+     * Evicts, once the current transaction commits, the cached responses built from a document
+     * that is deleted or renamed (cited sources would be wrong).
+     *
+     * @param documentId The changed document
      */
-    public void invalidateAll() {
+    public void invalidateDocument(String documentId) {
+        if (!cacheEnabled) {
+            return;
+        }
+        afterCommit(() -> {
+            try {
+                // Stamped before listing the entries, so answers still being cached see the change
+                Long change = stringRedisTemplate.opsForValue().increment(DOCUMENT_CHANGES_KEY);
+                stringRedisTemplate.opsForValue().set(DOCUMENT_CHANGED_PREFIX + documentId,
+                        String.valueOf(change != null ? change : Long.MAX_VALUE), Duration.ofSeconds(maxTtlSeconds));
+                String dependencyKey = DEPENDENCY_KEY_PREFIX + documentId;
+                Set<String> keys = stringRedisTemplate.opsForSet().members(dependencyKey);
+                stringRedisTemplate.unlink(dependencyKey);
+                if (!CollectionUtils.isEmpty(keys)) {
+                    evict(keys);
+                }
+                log.info("Cache INVALIDATED for document {}: {} entries", documentId, keys != null ? keys.size() : 0);
+            } catch (Exception e) {
+                log.warn("Failed to invalidate cache for document {}: {}", documentId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Evicts, once the current transaction commits, the cached responses a newly indexed document
+     * could change: those whose question matches one of its chunks at least as well as the
+     * weakest passage the response was built from. Each node matches the document against its
+     * own semantic index. Must be called in the indexing transaction.
+     *
+     * @param documentId The new document
+     */
+    public void invalidateForNewDocument(String documentId) {
+        if (!cacheEnabled) {
+            return;
+        }
+        List<StoredChunk> chunks = vectorChunkRepository.findByDocumentId(documentId);
+        afterCommit(() -> {
+            evictForNewDocument(documentId, chunks);
+            // Other nodes hold entries this node's semantic index does not know about
+            nearCache.announceNewDocument(documentId);
+        });
+    }
+
+    /** Applies a document indexed by another node to the entries of this node's semantic index. */
+    private void onNewDocumentElsewhere(String documentId) {
         if (!cacheEnabled) {
             return;
         }
+        try {
+            evictForNewDocument(documentId, vectorChunkRepository.findByDocumentId(documentId));
+        } catch (Exception e) {
+            log.warn("Failed to invalidate cache for new document {}: {}", documentId, e.getMessage());
+        }
+    }
 
+    /**
+     * Evicts the entries of the semantic index whose question one of the chunks matches at least
+     * as well as the weakest passage the response was built from.
+     */
+    private void evictForNewDocument(String documentId, List<StoredChunk> chunks) {
         try {
-            Set<String> keys = redisTemplate.keys(CACHE_KEY_PREFIX + "*");
-            if (CollectionUtils.isEmpty(keys)) {
-                log.debug("Cache invalidation: no entries to clear");
-                return;
+            Map<String, Double> bestScores = new HashMap<>();
+            for (StoredChunk chunk : chunks) {
+                for (SemanticCacheIndex.Match match
+                        : semanticCacheIndex.nearest(chunk.embedding(), candidatesPerChunk, retrievalThreshold)) {
+                    bestScores.merge(match.key(), match.score(), Math::max);
+                }
             }
-            Long deletedCount = redisTemplate.delete(keys);
-            log.info("Cache INVALIDATED: {} entries cleared", deletedCount);
+
+            List<String> keys = new ArrayList<>(bestScores.keySet());
+            List<String> affected = affectedByNewDocument(keys, bestScores, minScores(keys));
+            if (!affected.isEmpty()) {
+                evict(affected);
+            }
+            log.info("Cache INVALIDATED for new document {}: {} of {} close entries",
+                    documentId, affected.size(), keys.size());
+        } catch (Exception e) {
+            log.warn("Failed to invalidate cache for new document {}: {}", documentId, e.getMessage());
+        }
+    }
+
+    /**
+     * @param keys Entries close to a new document
+     * @param bestScores Best similarity of the new document's chunks to the question of each entry
+     * @param minScores Encoded score of the weakest passage of each entry, in key order (null if unknown)
+     * @return The entries the new document could change
+     */
+    static List<String> affectedByNewDocument(List<String> keys, Map<String, Double> bestScores,
+                                              List<Object> minScores) {
+        List<String> affected = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            // The new chunk would now rank above a passage the answer was built from
+            if (!(minScores.get(i) instanceof byte[] bytes)
+                    || bestScores.get(keys.get(i)) >= CachedResponseCodec.decodeScore(bytes)) {
+                affected.add(keys.get(i));
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Invalidates all cached responses by starting a new cache generation; the old entries are
+     * removed in the background.
+     * Called when the whole corpus changes (snapshot import).
+     */
+    public void invalidateAll() {
+        if (!cacheEnabled) {
+            return;
+        }
+
+        try {
+            long generation = cacheGeneration.advance();
+            semanticCacheIndex.clear();
+            nearCache.clear();
+            log.info("Cache INVALIDATED: now at generation {}", generation);
         } catch (Exception e) {
             log.warn("Failed to invalidate cache: {}", e.getMessage());
         }
     }
 
     /**
-     * Generates an embedding for the given text using Spring AI's EmbeddingModel.
+     * Measures the Redis memory used by cache entries, on a sample of keys, and the lookup latency.
      *
-     * @param text The text to embed
-     * @return The embedding as a float array
+     * @param sampleSize Maximum number of entries to measure
+     * @return Memory per entry and lookup latency since startup
      */
-    private float[] generateEmbedding(String text) {
-        return embeddingModel.embed(text);
+    public CacheStats stats(int sampleSize) {
+        long sampled = 0;
+        long totalBytes = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(cacheGeneration.keyPrefix() + "*").count(100).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext() && sampled < sampleSize) {
+                byte[] key = keys.next().getBytes(StandardCharsets.UTF_8);
+                Object usage = redisTemplate.execute((RedisCallback<Object>) connection ->
+                        memoryUsage(connection, key));
+                if (usage instanceof Number bytes) {
+                    sampled++;
+                    totalBytes += bytes.longValue();
+                }
+            }
+        }
+
+        Timer timer = meterRegistry.find(LOOKUP_TIMER).timer();
+        long lookups = timer != null ? timer.count() : 0;
+        // Expired entries linger in the set until the next admission prunes them
+        Long entries = stringRedisTemplate.opsForZSet().count(entriesKey(), System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        long entryCount = entries != null ? entries : 0;
+        double bytesPerEntry = sampled == 0 ? 0 : (double) totalBytes / sampled;
+        double admissions = admitted.count() + rejected.count();
+        return new CacheStats(
+                entryCount,
+                maxEntries,
+                sampled,
+                bytesPerEntry,
+                (long) (bytesPerEntry * entryCount),
+                nearCache.hitRatio(),
+                admissions == 0 ? 0 : admitted.count() / admissions,
+                (long) evictions.count(),
+                lookups,
+                lookups == 0 ? 0 : timer.mean(TimeUnit.MILLISECONDS),
+                timer != null ? timer.max(TimeUnit.MILLISECONDS) : 0);
+    }
+
+    /** Reads the passage score floor of several entries in one pipelined round trip. */
+    private List<Object> minScores(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        byte[] field = CachedResponseCodec.MIN_SCORE_FIELD.getBytes(StandardCharsets.UTF_8);
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.hashCommands().hGet(key.getBytes(StandardCharsets.UTF_8), field);
+            }
+            return null;
+        });
+    }
+
+    /** Deletes entries from Redis and drops them from the index and near cache of every node. */
+    private void evict(Collection<String> keys) {
+        redisTemplate.unlink(keys);
+        keys.stream()
+                .collect(Collectors.groupingBy(CacheService::entriesKeyOf))
+                .forEach((entries, members) -> stringRedisTemplate.opsForZSet().remove(entries, members.toArray()));
+        for (String key : keys) {
+            semanticCacheIndex.remove(key);
+            nearCache.evict(key);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Object memoryUsage(RedisConnection connection, byte[] key) {
+        return connection.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), key);
+    }
+
+    /**
+     * Reads an entry from the in-process tier, then from Redis, recording which tier served it.
+     */
+    private Optional<CachedResponse> read(String key) {
+        Optional<CachedResponse> local = nearCache.get(key);
+        if (local.isPresent()) {
+            nearCache.recordL1Hit();
+            return local;
+        }
+        Object body = redisTemplate.opsForHash().get(key, CachedResponseCodec.BODY_FIELD);
+        if (body == null) {
+            return Optional.empty();
+        }
+        CachedResponse cached = CachedResponseCodec.decodeBody((byte[]) body);
+        nearCache.put(key, cached);
+        nearCache.recordL2Hit();
+        touch(key, cached);
+        return Optional.of(cached);
+    }
+
+    /**
+     * TinyLFU admission: the question must be frequent enough, and when the cache is full it must
+     * be asked more often than the entry closest to expiry, which is then evicted. The entry is
+     * listed in the entries set as soon as it is admitted.
+     */
+    private boolean admit(String key, boolean pinned) {
+        int frequency = sketch.frequency(identityOf(key));
+        if (!isFrequentEnough(pinned, frequency, minAdmissionFrequency)) {
+            return false;
+        }
+        String victim = "";
+        for (int attempt = 0; attempt < ADMISSION_ATTEMPTS; attempt++) {
+            long now = System.currentTimeMillis();
+            List<?> result = stringRedisTemplate.execute(ADMIT_SCRIPT, List.of(entriesKeyOf(key)),
+                    String.valueOf(now), String.valueOf(maxEntries), key,
+                    String.valueOf(now + ttlSeconds * 1000L), victim, String.valueOf(maxTtlSeconds * 1000L));
+            if (result == null || result.size() < 2) {
+                return false;
+            }
+            if (Long.valueOf(1).equals(result.get(0))) {
+                if (!victim.isEmpty()) {
+                    evict(List.of(victim));
+                    evictions.increment();
+                }
+                return true;
+            }
+            // Full: replace the entry closest to expiry if asked less often; retried if another
+            // admission took it meanwhile
+            String oldest = String.valueOf(result.get(1));
+            if (oldest.isEmpty() || !replacesVictim(pinned, frequency, sketch.frequency(identityOf(oldest)))) {
+                return false;
+            }
+            victim = oldest;
+        }
+        return false;
+    }
+
+    /** Whether a question is asked often enough to be cached; warmed answers always are. */
+    static boolean isFrequentEnough(boolean pinned, int frequency, int minFrequency) {
+        return pinned || frequency >= minFrequency;
+    }
+
+    /**
+     * Whether a question replaces the entry closest to expiry in a full cache: only if it is
+     * asked more often, or is a warmed answer.
+     */
+    static boolean replacesVictim(boolean pinned, int frequency, int victimFrequency) {
+        return pinned || frequency > victimFrequency;
+    }
+
+    /** Extends an entry's TTL, up to max-ttl-seconds after caching, and its expiry in the entries set. */
+    private void touch(String key, CachedResponse cached) {
+        try {
+            long age = cached.getCachedAt() != null
+                    ? Duration.between(cached.getCachedAt(), LocalDateTime.now()).toSeconds()
+                    : 0;
+            long ttl = Math.min(ttlSeconds, maxTtlSeconds - age);
+            if (ttl <= 0) {
+                return;
+            }
+            byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+            byte[] entries = entriesKeyOf(key).getBytes(StandardCharsets.UTF_8);
+            double expiresAt = System.currentTimeMillis() + ttl * 1000;
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.keyCommands().expire(rawKey, ttl);
+                // XX: an entry evicted meanwhile is not listed again
+                connection.zSetCommands().zAdd(entries, expiresAt, rawKey,
+                        RedisZSetCommands.ZAddArgs.ifExists());
+                return null;
+            });
+        } catch (Exception e) {
+            log.debug("Failed to extend cache entry TTL: {}", e.getMessage());
+        }
+    }
+
+    private String entriesKey() {
+        return ENTRIES_KEY_PREFIX + cacheGeneration.current();
+    }
+
+    /** The entries set of the generation a key belongs to. */
+    private static String entriesKeyOf(String key) {
+        return ENTRIES_KEY_PREFIX + CacheGeneration.generationOf(key);
     }
 
     /**
-     * Calculates the cosine similarity between two vectors.
+     * @param key Redis key of a cached response
+     * @return The key without its generation: scope and question hash
+     */
+    static String identityOf(String key) {
+        return key.substring(key.indexOf(':', CACHE_KEY_PREFIX.length()) + 1);
+    }
+
+    private Counter admissionCounter(String result) {
+        return Counter.builder("hr_assistant.cache.admissions")
+                .tag("result", result)
+                .description("Responses admitted to or rejected from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param question The user's question
+     * @return Whether an answer to the question, asked without a document filter, is cached
+     */
+    public boolean isCached(String question) {
+        if (!cacheEnabled) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(cacheKey(question, List.of())));
+        } catch (Exception e) {
+            log.warn("Cache check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @param question The user's question
+     * @param documentIds The document filter (null or empty for none)
+     * @return The key the response to the question is cached under
+     */
+    public String cacheKey(String question, List<String> documentIds) {
+        return keyFor(question, scopeFor(documentIds));
+    }
+
+    /**
+     * Captures where an answer will be cached. Must be called before the answer is generated.
      *
-     * @param a First vector
-     * @param b Second vector
-     * @return Cosine similarity (0 to 1, where 1 means identical)
+     * @param key Cache key of the question (see {@link #cacheKey})
+     * @param questionEmbedding Embedding of the question, if the lookup computed it (null otherwise)
+     * @return The key, with the number of document changes so far
      */
-    private double cosineSimilarity(float[] a, float[] b) {
-        if (a.length != b.length) {
-            throw new IllegalArgumentException("Vectors must have the same length");
+    public CacheTarget cacheTarget(String key, float[] questionEmbedding) {
+        long documentChanges;
+        try {
+            String stored = stringRedisTemplate.opsForValue().get(DOCUMENT_CHANGES_KEY);
+            documentChanges = stored != null ? Long.parseLong(stored) : 0;
+        } catch (Exception e) {
+            // Unknown: any change stamped within max-ttl-seconds keeps the answer out
+            log.debug("Failed to read document changes: {}", e.getMessage());
+            documentChanges = -1;
+        }
+        return new CacheTarget(key, documentChanges, questionEmbedding);
+    }
+
+    /** Whether one of the documents was deleted or renamed after the given change count. */
+    private boolean changedSince(Collection<String> documentIds, long documentChanges) {
+        if (documentIds.isEmpty()) {
+            return false;
         }
+        List<String> stamps = stringRedisTemplate.opsForValue()
+                .multiGet(documentIds.stream().map(id -> DOCUMENT_CHANGED_PREFIX + id).toList());
+        return stamps != null && stamps.stream()
+                .anyMatch(stamp -> stamp != null && Long.parseLong(stamp) > documentChanges);
+    }
+
+    /**
+     * @param question The user's question
+     * @param scope Scope of the document filter, or null
+     * @return The cache key of the question in the current generation, shared by all its normalized variants
+     */
+    private String keyFor(String question, String scope) {
+        return cacheGeneration.keyPrefix() + (scope != null ? scope + ":" : "") + sha256(normalize(question));
+    }
 
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
+    /**
+     * @param question The user's question
+     * @return The question lower-cased, without accents, repeated whitespace or trailing punctuation
+     */
+    static String normalize(String question) {
+        String folded = DIACRITICS.matcher(Normalizer.normalize(question, Normalizer.Form.NFD)).replaceAll("");
+        String collapsed = WHITESPACE.matcher(folded.strip().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(collapsed).replaceAll("");
+    }
 
-        for (int i = 0; i < a.length; i++) {
-            dotProduct += a[i] * b[i];
-            normA += a[i] * a[i];
-            normB += b[i] * b[i];
+    /**
+     * Counts an unfiltered question whose answer is cached, hence accepted by the guardrail, for
+     * cache warming. Counted in normalized form, which maps to the same cache key, with the
+     * phrasing as typed kept for warming.
+     */
+    private void recordFrequent(String scope, String question) {
+        if (scope == null && question != null) {
+            frequentQuestions.record(question);
         }
+    }
 
-        if (normA == 0 || normB == 0) {
-            return 0.0;
+    /**
+     * @param documentIds The document filter (null or empty for none)
+     * @return Hash of the sorted, distinct document IDs; null without a filter
+     */
+    private static String scopeFor(List<String> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return null;
         }
+        String sorted = String.join(",", new TreeSet<>(documentIds));
+        return sha256(sorted).substring(0, SCOPE_HASH_LENGTH);
+    }
 
-        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+    /**
+     * @param key Redis key of a cached response
+     * @return The scope of the entry's document filter, or null for an unfiltered question
+     */
+    static String scopeOf(String key) {
+        String[] parts = key.substring(CACHE_KEY_PREFIX.length()).split(":");
+        return parts.length == 3 ? parts[1] : null;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Generates an embedding for the given text, batched with concurrent questions.
+     *
+     * @param text The text to embed
+     * @return The embedding as a float array
+     */
+    private float[] generateEmbedding(String text) {
+        return queryEmbeddingService.embed(text);
     }
 }
@@ -0,0 +1,200 @@
+package com.hrassistant.service;
+
+import com.hrassistant.model.ChatRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Answers the FAQ and the most frequent recent questions ahead of time, so the first users after
+ * a document change or at the start of the day do not wait for the LLM.
+ *
+ * <p>Warming runs {@code delay-after-change-seconds} after index changes (so a burst of uploads
+ * triggers one run) and on the {@code cron} schedule, on a single low-priority thread, one
+ * question at a time and only while no live generation is running on this node. A Redis lock
+ * keeps other nodes from warming at the same time. Questions whose answer is already cached are
+ * skipped. Idleness is only checked before each question: a live request arriving while a
+ * warm-up answer is being generated shares the LLM with it until that answer completes, for at
+ * most {@code generation-timeout-seconds}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheWarmer {
+
+    private static final String LOCK_KEY = "hr-assistant:cache-warming";
+    private static final Duration IDLE_POLL = Duration.ofSeconds(1);
+
+    private final CachingStreamingRagService cachingStreamingRagService;
+    private final CacheService cacheService;
+    private final FrequentQuestions frequentQuestions;
+    private final InFlightRequests inFlightRequests;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${hr-assistant.cache.warming.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hr-assistant.cache.warming.faq-file:classpath:faq.txt}")
+    private Resource faqFile;
+
+    @Value("${hr-assistant.cache.warming.top-n:20}")
+    private int topN;
+
+    @Value("${hr-assistant.cache.warming.delay-after-change-seconds:30}")
+    private int delayAfterChangeSeconds;
+
+    @Value("${hr-assistant.cache.warming.max-duration-minutes:30}")
+    private int maxDurationMinutes;
+
+    @Value("${hr-assistant.cache.warming.generation-timeout-seconds:120}")
+    private int generationTimeoutSeconds;
+
+    private final ScheduledExecutorService warmer = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("cache-warmer").daemon(true).priority(Thread.MIN_PRIORITY)
+                    .unstarted(runnable));
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final String nodeId = UUID.randomUUID().toString();
+    private Counter failures;
+
+    @PostConstruct
+    public void init() {
+        failures = Counter.builder("hr_assistant.cache.warming.failures")
+                .description("Questions the cache warmer failed to answer")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        warmer.shutdownNow();
+    }
+
+    /**
+     * Schedules a warming run after documents were added, changed or removed.
+     */
+    public void onIndexChanged() {
+        schedule(delayAfterChangeSeconds);
+    }
+
+    /**
+     * Warms the cache on the configured schedule, by default hourly during working days.
+     */
+    @Scheduled(cron = "${hr-assistant.cache.warming.cron:0 0 7-18 * * MON-FRI}")
+    public void scheduledWarmup() {
+        schedule(0);
+    }
+
+    private void schedule(int delaySeconds) {
+        if (enabled && pending.compareAndSet(false, true)) {
+            warmer.schedule(this::warm, delaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void warm() {
+        pending.set(false);
+        Duration maxDuration = Duration.ofMinutes(maxDurationMinutes);
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, nodeId, maxDuration))) {
+                log.debug("Cache warming already running on another node");
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Cache warming skipped, lock unavailable: {}", e.getMessage());
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int warmed = 0;
+        int failed = 0;
+        try {
+            Set<String> questions = new LinkedHashSet<>(faq());
+            questions.addAll(frequentQuestions.top(topN));
+            long deadline = start + maxDuration.toMillis();
+            for (String question : questions) {
+                if (!awaitIdle(deadline)) {
+                    log.info("Cache warming stopped after {}min, {} questions left",
+                            maxDurationMinutes, questions.size() - warmed);
+                    break;
+                }
+                if (cacheService.isCached(question)) {
+                    continue;
+                }
+                try {
+                    cachingStreamingRagService.refresh(ChatRequest.builder().question(question).build())
+                            .blockLast(Duration.ofSeconds(generationTimeoutSeconds));
+                    warmed++;
+                } catch (Exception e) {
+                    // Rejected by the guardrail, LLM failure or timeout: move on to the next question
+                    failed++;
+                    failures.increment();
+                    log.warn("Cache warming failed for question '{}': {}", question, e.getMessage());
+                }
+            }
+            log.info("Cache warmed: {} of {} questions answered, {} failed, in {}ms",
+                    warmed, questions.size(), failed, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Cache warming failed after {} questions: {}", warmed, e.getMessage());
+        } finally {
+            releaseLock();
+        }
+    }
+
+    /** Waits until no live generation runs on this node, so warming never competes for the LLM. */
+    private boolean awaitIdle(long deadline) throws InterruptedException {
+        while (inFlightRequests.activeCount() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(IDLE_POLL);
+        }
+        return System.currentTimeMillis() <= deadline;
+    }
+
+    /** Reads the FAQ file: one question per line, blank lines and lines starting with # ignored. */
+    private List<String> faq() {
+        if (!faqFile.exists()) {
+            return List.of();
+        }
+        try {
+            return faqFile.getContentAsString(StandardCharsets.UTF_8).lines()
+                    .map(String::strip)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Failed to read FAQ file {}: {}", faqFile, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void releaseLock() {
+        try {
+            if (nodeId.equals(redisTemplate.opsForValue().get(LOCK_KEY))) {
+                redisTemplate.delete(LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to release cache warming lock: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.hrassistant.service;
+
+import com.hrassistant.model.CachedResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary layout of a cached response in Redis: a hash with the question embedding and the
+ * response body in separate fields, so similarity lookups read only the vectors and the body
+ * is fetched for the winning entry alone.
+ *
+ * <p>The embedding is stored as little-endian float16 (2 bytes per component), which keeps
+ * cosine similarities well within the precision the cache threshold needs. The body (question,
+ * response, sources, caching time) is a GZIP-compressed sequence of length-prefixed UTF-8
+ * strings, preceded by a format version byte. The score of the weakest passage the answer was
+ * built from is stored as a little-endian double, used to decide whether a new document affects it.
+ */
+final class CachedResponseCodec {
+
+    static final String EMBEDDING_FIELD = "vec";
+    static final String BODY_FIELD = "body";
+    static final String MIN_SCORE_FIELD = "min-score";
+
+    private static final int BODY_VERSION = 1;
+
+    private CachedResponseCodec() {
+    }
+
+    static byte[] encodeEmbedding(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (float value : embedding) {
+            buffer.putShort(Float.floatToFloat16(value));
+        }
+        return buffer.array();
+    }
+
+    static float[] decodeEmbedding(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        float[] embedding = new float[bytes.length / Short.BYTES];
+        for (int i = 0; i < embedding.length; i++) {
+            embedding[i] = Float.float16ToFloat(buffer.getShort());
+        }
+        return embedding;
+    }
+
+    static byte[] encodeScore(double score) {
+        return ByteBuffer.allocate(Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).putDouble(score).array();
+    }
+
+    static double decodeScore(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getDouble();
+    }
+
+    static byte[] encodeBody(CachedResponse response) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeByte(BODY_VERSION);
+            writeString(out, response.getQuestion());
+            writeString(out, response.getResponse());
+            List<String> sources = response.getSources() != null ? response.getSources() : List.of();
+            out.writeInt(sources.size());
+            for (String source : sources) {
+                writeString(out, source);
+            }
+            writeString(out, response.getCachedAt() != null ? response.getCachedAt().toString() : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param body Encoded body
+     * @return The cached response, without its question embedding
+     */
+    static CachedResponse decodeBody(byte[] body) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(body)))) {
+            int version = in.readByte();
+            if (version != BODY_VERSION) {
+                throw new IllegalStateException("Unsupported cached response version " + version);
+            }
+            String question = readString(in);
+            String response = readString(in);
+            int sourceCount = in.readInt();
+            List<String> sources = new ArrayList<>(sourceCount);
+            for (int i = 0; i < sourceCount; i++) {
+                sources.add(readString(in));
+            }
+            String cachedAt = readString(in);
+            return CachedResponse.builder()
+                    .question(question)
+                    .response(response)
+                    .sources(sources)
+                    .cachedAt(cachedAt != null ? LocalDateTime.parse(cachedAt) : null)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
@@ -1,21 +1,26 @@
 package com.hrassistant.service;
 
+import com.hrassistant.model.AnswerDependencies;
 import com.hrassistant.model.CachedResponse;
 import com.hrassistant.model.ChatRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Decorator service that wraps StreamingRagService with semantic caching.
  * Checks cache before executing RAG pipeline and caches successful responses.
+ * Concurrent misses for the same question share one generation (see {@link InFlightRequests}).
  */
 @Slf4j
 @Service
@@ -24,17 +29,28 @@ public class CachingStreamingRagService {
 
     private final StreamingRagService streamingRagService;
     private final CacheService cacheService;
+    private final InFlightRequests inFlightRequests;
+
+    @Value("${hr-assistant.cache.single-flight.poll-interval-ms:250}")
+    private long pollIntervalMs;
+
+    @Value("${hr-assistant.cache.single-flight.max-wait-seconds:60}")
+    private long maxWaitSeconds;
+
+    /** One check of a generation running on another node. */
+    private record RemoteProgress(Optional<CachedResponse> cached, boolean running) {}
 
     /**
      * Processes a chat request with semantic caching.
      *
      * Flow:
-     * 1. Check cache for semantically similar question (only if no document filter applied)
+     * 1. Check cache for semantically similar question asked with the same document filter
      * 2. If cache hit: return cached response as stream
-     * 3. If cache miss: execute RAG pipeline, cache result, return stream
+     * 3. If cache miss: join the generation in flight for the same question, or execute RAG
+     *    pipeline, cache result, return stream
      *
-     * Note: Caching is bypassed when documentIds filter is applied to ensure
-     * filtered queries always return fresh results from the specified documents.
+     * Note: Filtered questions are cached per document set and evicted when one of the
+     * filtered documents changes, so they always reflect the specified documents.
      *
      * @param request The chat request containing the user's question
      * @return Flux of response tokens (cached or freshly generated)
@@ -44,15 +60,13 @@ public class CachingStreamingRagService {
         List<String> documentIds = request.getDocumentIds();
         log.debug("Processing request with cache check: {} (documentIds={})", question, documentIds);
 
-        // Skip cache when document filter is applied
-        boolean hasDocumentFilter = documentIds != null && !documentIds.isEmpty();
-        if (hasDocumentFilter) {
-            log.debug("Document filter applied, bypassing cache");
-            return streamingRagService.chatStream(request);
-        }
+        // The key of the generation current when the lookup starts: an answer generated from an
+        // older corpus must not be cached under a newer generation
+        String key = cacheService.cacheKey(question, documentIds);
 
-        // Step 1: Check cache for similar question
-        Optional<CachedResponse> cached = cacheService.findSimilarCached(question);
+        // Step 1: Check cache for similar question within the same document filter
+        AtomicReference<float[]> embedding = new AtomicReference<>();
+        Optional<CachedResponse> cached = cacheService.findSimilarCached(question, documentIds, embedding::set);
 
         if (cached.isPresent()) {
             // Cache hit - return cached response as stream
@@ -60,9 +74,72 @@ public class CachingStreamingRagService {
             return streamCachedResponse(cached.get());
         }
 
-        // Cache miss - execute RAG pipeline and cache the result
+        // Cache miss - execute RAG pipeline and cache the result, unless it is already running
         log.debug("Cache miss, executing RAG pipeline for question: {}", question);
-        return executeAndCache(request);
+        // The lookup's embedding is reused when the answer is cached
+        CacheService.CacheTarget target = cacheService.cacheTarget(key, embedding.get());
+        return inFlightRequests.coalesce(key, embedding.get(),
+                () -> executeAndCache(request, target, false),
+                () -> awaitRemoteGeneration(request, target));
+    }
+
+    /**
+     * Generates and caches an answer without looking up the cache or counting the question,
+     * sharing the generation with users asking the same question meanwhile. Used to warm the
+     * cache; the question is not embedded, so only identical questions join it.
+     *
+     * @param request The chat request
+     * @return Flux of response tokens
+     */
+    public Flux<String> refresh(ChatRequest request) {
+        String key = cacheService.cacheKey(request.getQuestion(), request.getDocumentIds());
+        CacheService.CacheTarget target = cacheService.cacheTarget(key, null);
+        return inFlightRequests.coalesce(key, null,
+                () -> executeAndCache(request, target, true),
+                () -> awaitRemoteGeneration(request, target));
+    }
+
+    /**
+     * Waits for another node to cache its answer to the question, then streams it. Generates
+     * the answer here if that node stops holding the lock without caching it, or after
+     * {@code max-wait-seconds}. Polls read the question's own key only: no embedding, no lookup
+     * metrics and no admission frequency are recorded while waiting.
+     *
+     * @param request The chat request
+     * @param target Where the question's answer is cached
+     * @return Flux of response tokens
+     */
+    private Flux<String> awaitRemoteGeneration(ChatRequest request, CacheService.CacheTarget target) {
+        String key = target.key();
+        long maxPolls = Duration.ofSeconds(maxWaitSeconds).toMillis() / pollIntervalMs;
+
+        return Flux.interval(Duration.ofMillis(pollIntervalMs))
+                .take(maxPolls)
+                .concatMap(tick -> Mono.fromCallable(() -> new RemoteProgress(
+                                cacheService.peek(key), inFlightRequests.isLockedElsewhere(key)))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .filter(progress -> progress.cached().isPresent() || !progress.running())
+                .next()
+                .flatMapMany(progress -> progress.cached()
+                        .map(this::streamCachedResponse)
+                        .orElseGet(() -> answerAfterRemoteGeneration(request, target)))
+                .switchIfEmpty(Flux.defer(() -> {
+                    log.warn("Timed out waiting for another node to answer: {}", request.getQuestion());
+                    return executeAndCache(request, target, false);
+                }));
+    }
+
+    /**
+     * Answers once the remote lock is gone: the leader releases it as soon as it finishes
+     * streaming, slightly before its answer is cached, so the cache is looked up once more first,
+     * semantically this time.
+     */
+    private Flux<String> answerAfterRemoteGeneration(ChatRequest request, CacheService.CacheTarget target) {
+        return Mono.delay(Duration.ofMillis(pollIntervalMs))
+                .publishOn(Schedulers.boundedElastic())
+                .flatMapMany(tick -> cacheService.findSimilarCached(request.getQuestion(), request.getDocumentIds())
+                        .map(this::streamCachedResponse)
+                        .orElseGet(() -> executeAndCache(request, target, false)));
     }
 
     /**
@@ -92,13 +169,16 @@ public class CachingStreamingRagService {
      * Caching runs on a separate bounded elastic thread to avoid blocking reactor threads.
      *
      * @param request The chat request
+     * @param target Where to cache the answer, captured when its lookup started
+     * @param pinned Whether to cache the response regardless of the question's frequency
      * @return Flux of response tokens
      */
-    private Flux<String> executeAndCache(ChatRequest request) {
+    private Flux<String> executeAndCache(ChatRequest request, CacheService.CacheTarget target, boolean pinned) {
         // Use a buffer to collect tokens for caching without blocking the stream
         List<String> tokensBuffer = new java.util.ArrayList<>();
+        AtomicReference<AnswerDependencies> dependencies = new AtomicReference<>(AnswerDependencies.none());
 
-        return streamingRagService.chatStream(request)
+        return streamingRagService.chatStream(request, dependencies::set)
                 .doOnNext(tokensBuffer::add) // Add each token to the buffer
                 .doOnComplete(() -> {
                     // When streaming is complete, cache the full response
@@ -109,7 +189,8 @@ public class CachingStreamingRagService {
                         // Run caching on a separate thread
                         Schedulers.boundedElastic().schedule(() -> {
                             try {
-                                cacheService.cacheResponse(request.getQuestion(), fullResponse, sources);
+                                cacheService.cacheResponse(target, request.getQuestion(), fullResponse, sources,
+                                        dependencies.get(), request.getDocumentIds(), pinned);
                             } catch (Exception e) {
                                 log.warn("Failed to cache response asynchronously: {}", e.getMessage());
                             }
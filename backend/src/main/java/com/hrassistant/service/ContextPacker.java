@@ -0,0 +1,200 @@
+package com.hrassistant.service;
+
+import com.hrassistant.model.PackedContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Assembles the context section of the RAG prompt within a token budget, so prompt prefill time
+ * stays bounded whatever the length of the retrieved chunks.
+ *
+ * <p>The number of passages is chosen from their scores: passages after a score drop larger than
+ * {@code score-gap} are left out. If the remaining passages exceed the budget, only their
+ * sentences sharing the most terms with the question are kept, in document order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContextPacker {
+
+    private static final Pattern SENTENCE_BOUNDARY = Pattern.compile("(?<=[.!?;])\\s+|\\n+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final String SENTENCE_SEPARATOR = " […] ";
+    private static final Set<String> STOP_WORDS = Set.of(
+            "les", "des", "une", "est", "que", "qui", "pour", "dans", "par", "sur", "avec", "aux",
+            "ces", "son", "ses", "leur", "mon", "mes", "quel", "quelle", "quels", "quelles",
+            "comment", "combien", "elle", "ils", "nous", "vous", "pas", "plus", "peut", "faut",
+            "the", "and", "for", "are", "what", "how", "can");
+
+    private final DocumentCatalog documentCatalog;
+
+    @Value("${hr-assistant.rag.context.max-tokens:1500}")
+    private int maxTokens;
+
+    @Value("${hr-assistant.rag.context.chars-per-token:4}")
+    private int charsPerToken;
+
+    @Value("${hr-assistant.rag.context.score-gap:0.1}")
+    private double scoreGap;
+
+    @Value("${hr-assistant.rag.context.min-passages:1}")
+    private int minPassages;
+
+    /**
+     * Packs retrieved passages into the prompt context.
+     *
+     * @param question The user question, used to rank sentences when trimming
+     * @param matches Retrieved passages, best first
+     * @return The context text and the passages it draws from
+     */
+    public PackedContext pack(String question, List<Document> matches) {
+        List<Document> passages = selectByScoreGap(matches);
+
+        int budget = characterBudget();
+        List<String> blocks = passages.stream()
+                .map(doc -> header(doc) + doc.getText())
+                .toList();
+        int length = blocks.stream().mapToInt(String::length).sum() + 2 * Math.max(0, blocks.size() - 1);
+
+        if (length > budget) {
+            PackedContext trimmed = trimToBudget(question, passages, budget);
+            log.debug("Context packed to ~{} tokens from {} passages (~{} tokens before trimming)",
+                    trimmed.estimatedTokens(), trimmed.passages().size(), estimateTokens(length));
+            return trimmed;
+        }
+
+        String text = String.join("\n\n", blocks);
+        log.debug("Context packed to ~{} tokens from {} of {} passages",
+                estimateTokens(text.length()), passages.size(), matches.size());
+        return new PackedContext(text, passages, estimateTokens(text.length()));
+    }
+
+    /**
+     * @return Size of the context budget in characters
+     */
+    public int characterBudget() {
+        return maxTokens * charsPerToken;
+    }
+
+    /** Keeps passages until the first score drop larger than {@code score-gap}. */
+    private List<Document> selectByScoreGap(List<Document> matches) {
+        List<Document> selected = new ArrayList<>();
+        Double previousScore = null;
+        for (Document doc : matches) {
+            Double score = doc.getScore();
+            if (selected.size() >= minPassages && previousScore != null && score != null
+                    && previousScore - score > scoreGap) {
+                break;
+            }
+            selected.add(doc);
+            previousScore = score;
+        }
+        return selected;
+    }
+
+    /**
+     * Fills the budget with the sentences sharing the most terms with the question, ties going
+     * to better-ranked passages, then renders each passage's kept sentences in their original order.
+     */
+    private PackedContext trimToBudget(String question, List<Document> passages, int budget) {
+        Set<String> questionTerms = terms(question);
+
+        record Sentence(int passage, int position, String text, int overlap) {}
+        List<List<String>> sentencesByPassage = new ArrayList<>();
+        List<Sentence> candidates = new ArrayList<>();
+        for (int p = 0; p < passages.size(); p++) {
+            List<String> sentences = splitSentences(passages.get(p).getText());
+            sentencesByPassage.add(sentences);
+            for (int s = 0; s < sentences.size(); s++) {
+                Set<String> sentenceTerms = terms(sentences.get(s));
+                sentenceTerms.retainAll(questionTerms);
+                candidates.add(new Sentence(p, s, sentences.get(s), sentenceTerms.size()));
+            }
+        }
+        candidates.sort(Comparator.comparingInt(Sentence::overlap).reversed()
+                .thenComparingInt(Sentence::passage)
+                .thenComparingInt(Sentence::position));
+
+        boolean[][] kept = new boolean[passages.size()][];
+        for (int p = 0; p < passages.size(); p++) {
+            kept[p] = new boolean[sentencesByPassage.get(p).size()];
+        }
+        boolean[] headerCounted = new boolean[passages.size()];
+        int used = 0;
+        for (Sentence sentence : candidates) {
+            int cost = sentence.text().length() + SENTENCE_SEPARATOR.length();
+            if (!headerCounted[sentence.passage()]) {
+                cost += header(passages.get(sentence.passage())).length() + 2;
+            }
+            if (used + cost > budget) {
+                continue;
+            }
+            used += cost;
+            headerCounted[sentence.passage()] = true;
+            kept[sentence.passage()][sentence.position()] = true;
+        }
+
+        List<String> blocks = new ArrayList<>();
+        List<Document> contributing = new ArrayList<>();
+        for (int p = 0; p < passages.size(); p++) {
+            List<String> keptSentences = new ArrayList<>();
+            for (int s = 0; s < kept[p].length; s++) {
+                if (kept[p][s]) {
+                    keptSentences.add(sentencesByPassage.get(p).get(s));
+                }
+            }
+            if (!keptSentences.isEmpty()) {
+                blocks.add(header(passages.get(p)) + String.join(SENTENCE_SEPARATOR, keptSentences));
+                contributing.add(passages.get(p));
+            }
+        }
+
+        String text = String.join("\n\n", blocks);
+        return new PackedContext(text, contributing, estimateTokens(text.length()));
+    }
+
+    private int estimateTokens(int chars) {
+        return (chars + charsPerToken - 1) / charsPerToken;
+    }
+
+    private String header(Document doc) {
+        String documentId = (String) doc.getMetadata().get("documentId");
+        return String.format("[Source: %s]\n", documentCatalog.displayName(documentId));
+    }
+
+    private static List<String> splitSentences(String text) {
+        List<String> sentences = new ArrayList<>();
+        for (String sentence : SENTENCE_BOUNDARY.split(text)) {
+            String trimmed = sentence.strip();
+            if (!trimmed.isEmpty()) {
+                sentences.add(trimmed);
+            }
+        }
+        return sentences;
+    }
+
+    /** Lower-cased, accent-free content words of at least three characters. */
+    private static Set<String> terms(String text) {
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        Set<String> terms = new HashSet<>();
+        for (String word : NON_WORD.split(folded.toLowerCase(Locale.ROOT))) {
+            if (word.length() >= 3 && !STOP_WORDS.contains(word)) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+}
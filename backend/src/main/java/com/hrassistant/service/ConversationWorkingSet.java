@@ -0,0 +1,87 @@
+package com.hrassistant.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chunks retrieved in the recent turns of a conversation, so follow-up questions are first
+ * scored against what the conversation already found.
+ *
+ * <p>Each conversation's working set is a Redis sorted set of chunk IDs scored by the time they
+ * were last retrieved, trimmed to the {@code max-chunks} most recent ones and expiring after
+ * {@code ttl-seconds} of inactivity.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConversationWorkingSet {
+
+    private static final String KEY_PREFIX = "hr-assistant:conversation:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${hr-assistant.rag.working-set.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hr-assistant.rag.working-set.max-chunks:30}")
+    private int maxChunks;
+
+    @Value("${hr-assistant.rag.working-set.ttl-seconds:1800}")
+    private int ttlSeconds;
+
+    /**
+     * @param conversationId The conversation ID (may be null)
+     * @return Chunk IDs retrieved in the recent turns, most recent first; empty when unknown
+     */
+    public List<String> chunkIds(String conversationId) {
+        if (!enabled || conversationId == null || conversationId.isBlank()) {
+            return List.of();
+        }
+        try {
+            Set<String> ids = redisTemplate.opsForZSet().reverseRange(key(conversationId), 0, -1);
+            return ids != null ? List.copyOf(ids) : List.of();
+        } catch (Exception e) {
+            log.warn("Conversation working set unavailable: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Adds the chunks retrieved for a turn to the conversation's working set.
+     *
+     * @param conversationId The conversation ID (may be null)
+     * @param retrieved The retrieved chunks
+     */
+    public void record(String conversationId, List<Document> retrieved) {
+        if (!enabled || conversationId == null || conversationId.isBlank() || retrieved.isEmpty()) {
+            return;
+        }
+        try {
+            double now = System.currentTimeMillis();
+            Set<ZSetOperations.TypedTuple<String>> members = new HashSet<>();
+            for (Document doc : retrieved) {
+                members.add(ZSetOperations.TypedTuple.of(doc.getId(), now));
+            }
+            String key = key(conversationId);
+            redisTemplate.opsForZSet().add(key, members);
+            redisTemplate.opsForZSet().removeRange(key, 0, -maxChunks - 1);
+            redisTemplate.expire(key, Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            log.warn("Failed to update conversation working set: {}", e.getMessage());
+        }
+    }
+
+    private static String key(String conversationId) {
+        return KEY_PREFIX + conversationId + ":chunks";
+    }
+}
@@ -0,0 +1,156 @@
+package com.hrassistant.service;
+
+import com.hrassistant.config.ReplicationLagGuard;
+import com.hrassistant.model.Document;
+import com.hrassistant.repository.DocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory catalog of documents (ID to filename, category and chunk count).
+ *
+ * Chunks in the vector store only reference their document ID; display names are resolved here
+ * at query time, so renaming a document updates a single row. The catalog is updated after each
+ * local change commits and fully reloaded periodically, from the primary, to pick up changes from
+ * other instances. A reload is merged into the catalog: a local change committed while it was
+ * reading is newer than what it read and is kept.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentCatalog {
+
+    private final DocumentRepository documentRepository;
+    private final ReplicationLagGuard replicationLagGuard;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Sequence number of the last local change to each document, until a reload has read it
+    private final Map<String, Long> localChanges = new ConcurrentHashMap<>();
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    /**
+     * Catalog data of one document.
+     *
+     * @param filename Display name
+     * @param category Category label as entered at upload (may be null)
+     * @param chunkCount Number of chunks stored in the vector store
+     */
+    public record Entry(String filename, String category, int chunkCount) {}
+
+    /**
+     * Reloads the whole catalog from the primary, keeping local changes made during the reload.
+     */
+    @Scheduled(fixedDelayString = "${hr-assistant.catalog.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            // Local changes are recorded after their commit, so the reload sees those up to here
+            long start = changeSequence.get();
+            Map<String, Entry> loaded = new HashMap<>();
+            for (Document document : replicationLagGuard.onPrimary(documentRepository::findAll)) {
+                loaded.put(document.getId(), toEntry(document));
+            }
+            loaded.forEach((id, entry) -> {
+                if (!changedSince(id, start)) {
+                    entries.put(id, entry);
+                }
+            });
+            entries.keySet().removeIf(id -> !loaded.containsKey(id) && !changedSince(id, start));
+            localChanges.values().removeIf(change -> change <= start);
+            log.debug("Document catalog refreshed: {} documents", loaded.size());
+        } catch (Exception e) {
+            log.warn("Failed to refresh document catalog: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Looks up a document, loading it from PostgreSQL if it is not in the catalog yet.
+     *
+     * @param documentId The document ID
+     * @return The catalog entry, or empty if the document does not exist
+     */
+    public Optional<Entry> find(String documentId) {
+        if (documentId == null) {
+            return Optional.empty();
+        }
+        Entry entry = entries.get(documentId);
+        if (entry != null) {
+            return Optional.of(entry);
+        }
+        long start = changeSequence.get();
+        Optional<Entry> loaded = documentRepository.findById(documentId).map(DocumentCatalog::toEntry);
+        loaded.ifPresent(value -> {
+            if (!changedSince(documentId, start)) {
+                entries.putIfAbsent(documentId, value);
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * @param documentId The document ID
+     * @return The document's filename, or its ID if the document is unknown
+     */
+    public String displayName(String documentId) {
+        return find(documentId).map(Entry::filename).orElse(documentId);
+    }
+
+    /**
+     * Records a created or modified document once the current transaction commits.
+     *
+     * @param document The document as saved
+     */
+    public void put(Document document) {
+        Entry entry = toEntry(document);
+        afterCommit(() -> {
+            recordChange(document.getId());
+            entries.put(document.getId(), entry);
+        });
+    }
+
+    /**
+     * Forgets a deleted document once the current transaction commits.
+     *
+     * @param documentId The document ID
+     */
+    public void remove(String documentId) {
+        afterCommit(() -> {
+            recordChange(documentId);
+            entries.remove(documentId);
+        });
+    }
+
+    private void recordChange(String documentId) {
+        localChanges.put(documentId, changeSequence.incrementAndGet());
+    }
+
+    private boolean changedSince(String documentId, long sequence) {
+        return localChanges.getOrDefault(documentId, 0L) > sequence;
+    }
+
+    private static Entry toEntry(Document document) {
+        return new Entry(document.getFilename(), document.getCategory(), document.getChunkCount());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
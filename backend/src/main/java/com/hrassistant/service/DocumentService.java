@@ -1,5 +1,6 @@
 package com.hrassistant.service;
 
+import com.hrassistant.config.ReplicationLagGuard;
 import com.hrassistant.exception.HrAssistantException;
 import com.hrassistant.mapper.DocumentMapper;
 import com.hrassistant.model.*;
@@ -11,6 +12,8 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.ai.document.Document;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -36,6 +39,11 @@ public class DocumentService {
     private final DocumentRepository documentRepository;
     private final DocumentMapper documentMapper;
     private final CacheService cacheService;
+    private final CacheWarmer cacheWarmer;
+    private final InMemoryVectorIndex inMemoryVectorIndex;
+    private final RetrievalCache retrievalCache;
+    private final ReplicationLagGuard replicationLagGuard;
+    private final DocumentCatalog documentCatalog;
 
     @Value("${hr-assistant.documents.max-size-mb:10}")
     private int maxSizeMb;
@@ -111,19 +119,25 @@ public class DocumentService {
             String text = extractText(file, document.getType());
 
             // Step 3: Chunk text
-            List<DocumentChunk> chunks = chunkText(text, documentId, document.getFilename());
+            String hrCategory = HrCategory.fromLabel(category).map(Enum::name).orElse(null);
+            List<DocumentChunk> chunks = chunkText(text, documentId, hrCategory);
 
             // Step 4: Store chunks in VectorStore (embedding is automatic)
             indexChunks(chunks);
+            inMemoryVectorIndex.addDocument(documentId);
+            replicationLagGuard.recordWrite(documentId);
 
             // Step 5: Update document status
             document.setStatus(DocumentStatus.INDEXED);
             document.setChunkCount(chunks.size());
             document.setIndexedAt(LocalDateTime.now());
             documentRepository.save(document);
+            documentCatalog.put(document);
 
-            // Step 6: Invalidate cache (new documents may change answers)
-            cacheService.invalidateAll();
+            // Step 6: Invalidate caches (new documents may change answers and search results)
+            cacheService.invalidateForNewDocument(documentId);
+            retrievalCache.invalidate();
+            cacheWarmer.onIndexChanged();
 
             log.info("Document indexed successfully: {} ({} chunks)",
                     document.getFilename(), chunks.size());
@@ -143,6 +157,29 @@ public class DocumentService {
         }
     }
 
+    /**
+     * Tags the chunks of documents indexed before category routing existed with their HR category,
+     * so they are found by category-scoped searches.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillChunkCategories() {
+        try {
+            int updatedRows = 0;
+            for (com.hrassistant.model.Document document : documentRepository.findAll()) {
+                Optional<HrCategory> hrCategory = HrCategory.fromLabel(document.getCategory());
+                if (hrCategory.isPresent()) {
+                    updatedRows += vectorStoreService.tagUncategorizedChunks(document.getId(), hrCategory.get());
+                }
+            }
+            if (updatedRows > 0) {
+                retrievalCache.invalidate();
+                log.info("Backfilled HR category on {} vector store entries", updatedRows);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to backfill chunk categories: {}", e.getMessage());
+        }
+    }
+
     /**
      * Validates file type and size.
      */
@@ -297,7 +334,7 @@ public class DocumentService {
     /**
      * Chunks text with overlap.
      */
-    private List<DocumentChunk> chunkText(String text, String documentId, String documentName) {
+    private List<DocumentChunk> chunkText(String text, String documentId, String category) {
         log.debug("Chunking text: {} chars, chunkSize={}, overlap={}",
                 text.length(), chunkSize, chunkOverlap);
 
@@ -312,9 +349,9 @@ public class DocumentService {
             DocumentChunk chunk = DocumentChunk.builder()
                     .id(UUID.randomUUID().toString())
                     .documentId(documentId)
-                    .documentName(documentName)
                     .index(index++)
                     .content(chunkContent)
+                    .category(category)
                     .build();
 
             chunks.add(chunk);
@@ -345,6 +382,7 @@ public class DocumentService {
      * Retrieves all documents from PostgreSQL.
      */
     public List<DocumentInfo> getAllDocuments() {
+        // Read from the primary while a write is not yet replicated (see ReplicationLagGuard)
         return documentRepository.findAll().stream()
                 .map(documentMapper::toDocumentInfo)
                 .toList();
@@ -371,7 +409,7 @@ public class DocumentService {
 
     /**
      * Renames a document in the database.
-     * Also updates the document name in VectorStore metadata.
+     * Chunks reference the document by ID only, so no vector store row is rewritten.
      *
      * @param id The document ID
      * @param newFilename The new filename
@@ -391,8 +429,13 @@ public class DocumentService {
         document.setFilename(newFilename);
         documentRepository.save(document);
 
-        // Update document name in VectorStore metadata
-        vectorStoreService.updateDocumentName(id, newFilename);
+        // Chunks only reference the document ID: names are resolved through the catalog
+        documentCatalog.put(document);
+        replicationLagGuard.recordWrite(id);
+
+        // Cached answers cite the old name in their sources
+        cacheService.invalidateDocument(id);
+        cacheWarmer.onIndexChanged();
 
         log.info("Document renamed: {} -> {}", oldFilename, newFilename);
 
@@ -418,9 +461,14 @@ public class DocumentService {
 
         // Remove embeddings from VectorStore
         vectorStoreService.removeByDocumentId(id);
-
-        // Invalidate cache (removed documents may change answers)
-        cacheService.invalidateAll();
+        inMemoryVectorIndex.removeDocument(id);
+        documentCatalog.remove(id);
+        replicationLagGuard.recordWrite(id);
+
+        // Invalidate caches (removed documents may change answers and search results)
+        cacheService.invalidateDocument(id);
+        retrievalCache.invalidate();
+        cacheWarmer.onIndexChanged();
 
         log.info("Document deleted: {} (file, metadata and embeddings removed)", document.getFilename());
     }
@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Slf4j
@@ -16,13 +17,15 @@ public class EmbeddingService {
     /**
      * Converts a DocumentChunk to a Spring AI Document.
      * The Document class handles both content and metadata.
+     * The document is referenced by ID only; its name is resolved through the DocumentCatalog.
      */
     public Document toDocument(DocumentChunk chunk) {
-        Map<String, Object> metadata = Map.of(
-                "documentId", chunk.getDocumentId(),
-                "documentName", chunk.getDocumentName(),
-                "chunkIndex", chunk.getIndex()
-        );
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("documentId", chunk.getDocumentId());
+        metadata.put("chunkIndex", chunk.getIndex());
+        if (chunk.getCategory() != null) {
+            metadata.put("category", chunk.getCategory());
+        }
 
         return new Document(chunk.getId(), chunk.getContent(), metadata);
     }
@@ -0,0 +1,91 @@
+package com.hrassistant.service;
+
+/**
+ * Approximate access frequency of cache keys for TinyLFU admission: a count-min sketch of
+ * 4-bit counters (16 per {@code long}), four per key, whose counts are halved every
+ * {@code 10 * maximumSize} increments so that past popularity fades.
+ *
+ * <p>Frequencies are capped at 15 and may be overestimated on collisions, never underestimated.
+ *
+ * See Einziger, Friedman &amp; Manes, "TinyLFU: A Highly Efficient Cache Admission Policy" (2017).
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param maximumSize Number of entries the cache holds; sizes the sketch and its aging period
+     */
+    FrequencySketch(int maximumSize) {
+        int size = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 16);
+    }
+
+    /**
+     * @param item The key
+     * @return Estimated number of recent occurrences of the key, at most 15
+     */
+    synchronized int frequency(String item) {
+        int hash = spread(item.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, (int) ((table[index(hash, row)] >>> offset(hash, row)) & 0xF));
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an occurrence of the key.
+     *
+     * @param item The key
+     */
+    synchronized void increment(String item) {
+        int hash = spread(item.hashCode());
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            int offset = offset(hash, row);
+            if (((table[index] >>> offset) & 0xF) < MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    /** Halves every counter. */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int h = hash * SEEDS[row];
+        return (h ^ (h >>> 16)) & tableMask;
+    }
+
+    /** Bit offset of the row's counter within its long: one of the 16 nibbles. */
+    private static int offset(int hash, int row) {
+        return (((hash >>> (row * 8)) & 3) + row * 4) << 2;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45D9F3B;
+        x = ((x >>> 16) ^ x) * 0x45D9F3B;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,114 @@
+package com.hrassistant.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Counts the unfiltered questions users ask, so the most frequent recent ones can be answered
+ * ahead of time.
+ *
+ * <p>Only questions with a cached answer are counted, in their normalized cache form (see
+ * {@link CacheService}): questions rejected by the guardrail or never answered are not stored.
+ * Counts are kept in one Redis sorted set per day, expiring after {@code window-days}; the top
+ * questions are read from the union of the days in the window. Next to each day's counts, a
+ * hash keeps the first phrasing of each question as a user typed it: that is the text sent to
+ * the guardrail and the LLM when the question is answered ahead of time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FrequentQuestions {
+
+    private static final String KEY_PREFIX = "hr-assistant:questions:";
+    private static final String PHRASINGS_SUFFIX = ":phrasings";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${hr-assistant.cache.warming.window-days:7}")
+    private int windowDays;
+
+    /**
+     * @param question A question as typed, asked without a document filter, whose answer is cached
+     */
+    public void record(String question) {
+        try {
+            String day = key(LocalDate.now());
+            byte[] key = day.getBytes(StandardCharsets.UTF_8);
+            byte[] phrasingsKey = (day + PHRASINGS_SUFFIX).getBytes(StandardCharsets.UTF_8);
+            byte[] member = CacheService.normalize(question).getBytes(StandardCharsets.UTF_8);
+            byte[] phrasing = question.strip().getBytes(StandardCharsets.UTF_8);
+            long ttlSeconds = Duration.ofDays(windowDays + 1L).toSeconds();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.zSetCommands().zIncrBy(key, 1, member);
+                connection.hashCommands().hSetNX(phrasingsKey, member, phrasing);
+                connection.keyCommands().expire(key, ttlSeconds);
+                connection.keyCommands().expire(phrasingsKey, ttlSeconds);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Failed to record question frequency: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param n Maximum number of questions
+     * @return The questions asked most often over the window, most frequent first, each in a
+     *         phrasing a user typed (in normalized form if none is left)
+     */
+    public List<String> top(int n) {
+        LocalDate today = LocalDate.now();
+        List<String> otherDays = new ArrayList<>();
+        for (int day = 1; day < windowDays; day++) {
+            otherDays.add(key(today.minusDays(day)));
+        }
+        Set<ZSetOperations.TypedTuple<String>> counts =
+                redisTemplate.opsForZSet().unionWithScores(key(today), otherDays);
+        if (counts == null) {
+            return List.of();
+        }
+        List<String> top = counts.stream()
+                .sorted(Comparator.comparing(ZSetOperations.TypedTuple<String>::getScore,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(n)
+                .map(ZSetOperations.TypedTuple::getValue)
+                .toList();
+        return phrasings(today, top);
+    }
+
+    /** Replaces each normalized question with its phrasing from the most recent day that has one. */
+    private List<String> phrasings(LocalDate today, List<String> normalizedQuestions) {
+        List<String> questions = new ArrayList<>(normalizedQuestions);
+        List<Object> fields = new ArrayList<>(normalizedQuestions);
+        boolean[] found = new boolean[questions.size()];
+        int missing = questions.size();
+        for (int day = 0; day < windowDays && missing > 0; day++) {
+            List<Object> values = redisTemplate.opsForHash()
+                    .multiGet(key(today.minusDays(day)) + PHRASINGS_SUFFIX, fields);
+            for (int i = 0; i < questions.size(); i++) {
+                if (!found[i] && values.get(i) != null) {
+                    questions.set(i, (String) values.get(i));
+                    found[i] = true;
+                    missing--;
+                }
+            }
+        }
+        return questions;
+    }
+
+    private static String key(LocalDate day) {
+        return KEY_PREFIX + day;
+    }
+}
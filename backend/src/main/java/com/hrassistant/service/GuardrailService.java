@@ -105,9 +105,10 @@ public class GuardrailService {
    * Validates that a question is appropriate for the HR assistant.
    *
    * @param question the user's question
+   * @return the classification of the accepted question
    * @throws HrAssistantException if the question is invalid or off-topic
    */
-  public void validateQuestion(String question) {
+  public GuardrailResult validateQuestion(String question) {
     if (!StringUtils.hasText(question)) {
       log.warn("Empty question received");
       throw new HrAssistantException(
@@ -125,6 +126,7 @@ public class GuardrailService {
     }
 
     log.debug("Question validated: {}", question);
+    return result;
   }
 
   /**
@@ -0,0 +1,184 @@
+package com.hrassistant.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of answer generations: while a question is being answered, the same
+ * question, or one within the cache similarity threshold and with the same document filter,
+ * joins the running generation instead of starting another.
+ *
+ * <p>On this node, followers subscribe to the leader's shared {@link Flux}, which replays the
+ * tokens already produced. Across nodes, a Redis lock on the question's cache key elects one
+ * leader; followers on other nodes wait for its answer to land in the response cache. The lock
+ * expires after {@code lock-ttl-seconds}, so a crashed leader cannot block a question, and is
+ * only released by its owner.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InFlightRequests {
+
+    private static final String LOCK_KEY_PREFIX = "hr-assistant:inflight:";
+    // Deletes the lock only if this node still owns it: it may have expired and been taken over
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${hr-assistant.cache.single-flight.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hr-assistant.cache.single-flight.lock-ttl-seconds:120}")
+    private int lockTtlSeconds;
+
+    @Value("${hr-assistant.cache.similarity-threshold:0.85}")
+    private double similarityThreshold;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private record InFlight(String scope, float[] embedding, Flux<String> tokens) {}
+
+    /**
+     * Answers a question through the generation already running for it, if any.
+     *
+     * @param key Cache key of the question (see {@link CacheService#cacheKey})
+     * @param embedding Embedding of the question, or null to only join the same question
+     * @param generation Starts the generation when this node leads
+     * @param awaitRemote Waits for the answer when another node leads
+     * @return Flux of response tokens
+     */
+    public Flux<String> coalesce(String key, float[] embedding,
+                                 Supplier<Flux<String>> generation, Supplier<Flux<String>> awaitRemote) {
+        if (!enabled) {
+            return generation.get();
+        }
+        Flux<String> tokens;
+        // Only the local registry is guarded: the Redis lock is taken on subscription, outside
+        // the monitor. Local followers share the leader's Flux, whether it generates or waits
+        synchronized (this) {
+            InFlight running = find(key, embedding);
+            if (running != null) {
+                log.info("Joining in-flight generation for key: {}", key);
+                count("local");
+                return running.tokens();
+            }
+            AtomicBoolean locked = new AtomicBoolean();
+            // cache(): every follower gets the full answer, and the generation completes (and is
+            // cached) even if the requester disconnects
+            tokens = Mono.fromCallable(() -> tryLock(key))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapMany(acquired -> {
+                        if (acquired) {
+                            locked.set(true);
+                            return Flux.defer(generation);
+                        }
+                        log.info("Question already being answered on another node, key: {}", key);
+                        count("remote");
+                        return Flux.defer(awaitRemote);
+                    })
+                    .doFinally(signal -> {
+                        inFlight.remove(key);
+                        if (locked.get()) {
+                            unlock(key);
+                        }
+                    })
+                    .cache();
+            inFlight.put(key, new InFlight(CacheService.scopeOf(key), embedding, tokens));
+        }
+        return tokens;
+    }
+
+    /**
+     * @return The number of generations running on this node
+     */
+    public int activeCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @param key Cache key of a question
+     * @return Whether another node holds the generation lock of the question
+     */
+    public boolean isLockedElsewhere(String key) {
+        try {
+            String owner = redisTemplate.opsForValue().get(LOCK_KEY_PREFIX + key);
+            return owner != null && !owner.equals(nodeId);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private InFlight find(String key, float[] embedding) {
+        InFlight exact = inFlight.get(key);
+        if (exact != null) {
+            return exact;
+        }
+        if (embedding == null) {
+            return null;
+        }
+        String scope = CacheService.scopeOf(key);
+        for (InFlight running : inFlight.values()) {
+            if (running.embedding() != null && Objects.equals(running.scope(), scope)
+                    && cosineSimilarity(running.embedding(), embedding) >= similarityThreshold) {
+                return running;
+            }
+        }
+        return null;
+    }
+
+    private boolean tryLock(String key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                    .setIfAbsent(LOCK_KEY_PREFIX + key, nodeId, Duration.ofSeconds(lockTtlSeconds)));
+        } catch (Exception e) {
+            log.warn("Generation lock unavailable, answering locally: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlock(String key) {
+        try {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY_PREFIX + key), nodeId);
+        } catch (Exception e) {
+            log.warn("Failed to release generation lock: {}", e.getMessage());
+        }
+    }
+
+    private void count(String source) {
+        meterRegistry.counter("hr_assistant.cache.coalesced", "source", source).increment();
+    }
+
+    private static double cosineSimilarity(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
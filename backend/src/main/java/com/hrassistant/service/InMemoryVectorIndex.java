@@ -0,0 +1,448 @@
+package com.hrassistant.service;
+
+import com.hrassistant.config.ReplicationLagGuard;
+import com.hrassistant.index.HnswIndex;
+import com.hrassistant.index.OffHeapVectorStorage;
+import com.hrassistant.model.HrCategory;
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.repository.VectorChunkRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process replica of the pgvector index.
+ *
+ * Vectors are kept off-heap in a memory-mapped file and indexed with an HNSW graph,
+ * so similarity searches avoid the PostgreSQL round trip. PostgreSQL stays the source
+ * of truth: the replica is warmed from {@code vector_store} at startup, updated after
+ * the document ingestion and delete transactions commit, and rebuilt whenever it drifts
+ * (failed sync, too many removed vectors). Until it is ready, callers fall back to pgvector.
+ *
+ * All replica writes run on a single background thread, so updates committed during a
+ * rebuild are applied to the new replica once it is swapped in. Removals are additionally
+ * applied immediately so deleted documents are never served.
+ *
+ * The replica is local to each application node; it only sees documents ingested or
+ * deleted through this node after its last rebuild.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InMemoryVectorIndex {
+
+    private final VectorChunkRepository vectorChunkRepository;
+    private final ReplicationLagGuard replicationLagGuard;
+
+    @Value("${hr-assistant.rag.in-memory-index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${hr-assistant.rag.in-memory-index.file-path:./index/vectors.bin}")
+    private String filePath;
+
+    @Value("${spring.ai.vectorstore.pgvector.dimensions:768}")
+    private int dimensions;
+
+    @Value("${hr-assistant.rag.in-memory-index.m:16}")
+    private int m;
+
+    @Value("${hr-assistant.rag.in-memory-index.ef-construction:200}")
+    private int efConstruction;
+
+    @Value("${hr-assistant.rag.in-memory-index.ef-search:100}")
+    private int efSearch;
+
+    // Shared with the PostgreSQL search, so both paths switch to an exact scan at the same point
+    @Value("${hr-assistant.rag.exact-scan-threshold:2000}")
+    private int exactScanThreshold;
+
+    @Value("${hr-assistant.rag.in-memory-index.rebuild-removed-ratio:0.3}")
+    private double rebuildRemovedRatio;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            runnable -> Thread.ofPlatform().name("vector-index-writer").daemon(true).unstarted(runnable));
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final AtomicInteger pendingUpdates = new AtomicInteger();
+    private int generation;
+    private volatile Replica replica;
+
+    /**
+     * Chunk data kept on the heap next to each off-heap vector.
+     */
+    private record ChunkEntry(String chunkId, String documentId, int chunkIndex, String category,
+                              String content) {}
+
+    /**
+     * One built generation of the replica: the graph plus the slot lookups.
+     */
+    private record Replica(
+            HnswIndex index,
+            Map<Integer, ChunkEntry> entriesBySlot,
+            Map<String, Set<Integer>> slotsByDocument,
+            Map<String, Integer> slotsByChunk) {
+
+        static Replica empty(HnswIndex index) {
+            return new Replica(index, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        void add(StoredChunk chunk) {
+            int slot = index.insert(chunk.embedding());
+            entriesBySlot.put(slot, new ChunkEntry(chunk.id(), chunk.documentId(), chunk.chunkIndex(),
+                    chunk.category(), chunk.content()));
+            slotsByDocument.computeIfAbsent(chunk.documentId(), id -> ConcurrentHashMap.newKeySet()).add(slot);
+            slotsByChunk.put(chunk.id(), slot);
+        }
+
+        void remove(String documentId) {
+            Set<Integer> slots = slotsByDocument.remove(documentId);
+            if (slots == null) {
+                return;
+            }
+            for (int slot : slots) {
+                index.remove(slot);
+                ChunkEntry entry = entriesBySlot.remove(slot);
+                if (entry != null) {
+                    slotsByChunk.remove(entry.chunkId(), slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Warms the replica from PostgreSQL once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            log.debug("In-memory vector index is disabled, searches use pgvector");
+            return;
+        }
+        rebuildAsync();
+    }
+
+    /**
+     * @return true if the replica is enabled and fully built
+     */
+    public boolean isReady() {
+        return enabled && replica != null;
+    }
+
+    /**
+     * @return Whether a committed ingestion, deletion or rebuild is not yet applied to the replica
+     */
+    public boolean hasPendingUpdates() {
+        return enabled && pendingUpdates.get() > 0;
+    }
+
+    /**
+     * Searches the replica for the chunks most similar to the query embedding.
+     *
+     * @param embedding The query embedding
+     * @param topK Maximum number of results
+     * @param minScore Minimum cosine similarity
+     * @param documentIds Optional document ID filter (null or empty means all documents)
+     * @param category Optional HR category filter
+     * @return Matching chunks as Spring AI documents, best first
+     * @throws IllegalStateException if the replica is not ready
+     */
+    public List<Document> search(float[] embedding, int topK, double minScore, List<String> documentIds,
+                                 HrCategory category) {
+        Replica current = replica;
+        if (!enabled || current == null) {
+            throw new IllegalStateException("In-memory vector index is not ready");
+        }
+
+        List<HnswIndex.ScoredSlot> hits;
+        if (documentIds != null && !documentIds.isEmpty()) {
+            hits = searchFiltered(current, embedding, topK, documentIds, category);
+        } else if (category != null) {
+            String categoryName = category.name();
+            hits = current.index().search(embedding, topK, efSearch, slot -> hasCategory(current, slot, categoryName));
+        } else {
+            hits = current.index().search(embedding, topK, efSearch, null);
+        }
+
+        List<Document> matches = new ArrayList<>(hits.size());
+        for (HnswIndex.ScoredSlot hit : hits) {
+            ChunkEntry entry = current.entriesBySlot().get(hit.slot());
+            if (entry == null || hit.score() < minScore) {
+                continue;
+            }
+            matches.add(toDocument(entry, hit.score()));
+        }
+
+        log.debug("In-memory index returned {} matches", matches.size());
+        return matches;
+    }
+
+    /**
+     * @param documentId The document ID
+     * @return Whether the replica is ready and holds the document's chunks
+     */
+    public boolean hasDocument(String documentId) {
+        Replica current = replica;
+        return enabled && current != null && current.slotsByDocument().containsKey(documentId);
+    }
+
+    /**
+     * Reads chunk embeddings from the replica, sparing the PostgreSQL round trip.
+     *
+     * @param chunkIds Chunk identifiers
+     * @return Normalized embeddings keyed by chunk ID; chunks the replica does not hold are absent
+     */
+    public Map<String, float[]> findEmbeddings(List<String> chunkIds) {
+        Replica current = replica;
+        if (!enabled || current == null) {
+            return Map.of();
+        }
+        Map<String, float[]> embeddings = new HashMap<>();
+        for (String chunkId : chunkIds) {
+            Integer slot = current.slotsByChunk().get(chunkId);
+            if (slot != null) {
+                embeddings.put(chunkId, current.index().vector(slot));
+            }
+        }
+        return embeddings;
+    }
+
+    /**
+     * Reads chunks by position from the replica.
+     *
+     * @param positions Pairs of document ID and chunk index
+     * @return The chunks the replica holds, with a null embedding
+     */
+    public List<StoredChunk> findByPositions(List<Map.Entry<String, Integer>> positions) {
+        Replica current = replica;
+        if (!enabled || current == null) {
+            return List.of();
+        }
+        List<StoredChunk> chunks = new ArrayList<>();
+        for (Map.Entry<String, Integer> position : positions) {
+            for (int slot : current.slotsByDocument().getOrDefault(position.getKey(), Set.of())) {
+                ChunkEntry entry = current.entriesBySlot().get(slot);
+                if (entry != null && entry.chunkIndex() == position.getValue()) {
+                    chunks.add(new StoredChunk(entry.chunkId(), entry.documentId(), entry.chunkIndex(),
+                            entry.category(), entry.content(), null));
+                    break;
+                }
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Adds (or replaces) a document's chunks once the current transaction commits,
+     * reading them back from PostgreSQL. A sync failure schedules a full rebuild
+     * rather than leaving the replica incomplete.
+     *
+     * @param documentId The document ID
+     */
+    public void addDocument(String documentId) {
+        if (!enabled) {
+            return;
+        }
+        queueAfterCommit(() -> { }, () -> {
+            Replica current = replica;
+            if (current == null) {
+                return;
+            }
+            try {
+                List<StoredChunk> chunks = replicationLagGuard.onPrimary(
+                        () -> vectorChunkRepository.findByDocumentId(documentId));
+                current.remove(documentId);
+                chunks.forEach(current::add);
+                log.debug("In-memory index synced {} chunks for document {}", chunks.size(), documentId);
+            } catch (Exception e) {
+                log.warn("In-memory index sync failed for document {}: {}, scheduling rebuild",
+                        documentId, e.getMessage());
+                rebuildAsync();
+            }
+        });
+    }
+
+    /**
+     * Removes a document's chunks from the replica once the current transaction commits.
+     *
+     * @param documentId The document ID
+     */
+    public void removeDocument(String documentId) {
+        if (!enabled) {
+            return;
+        }
+        // Stop serving the document right away, then replay on the writer thread
+        // so a replica being rebuilt drops it too
+        queueAfterCommit(() -> {
+            Replica current = replica;
+            if (current != null) {
+                current.remove(documentId);
+            }
+        }, () -> {
+            Replica latest = replica;
+            if (latest == null) {
+                return;
+            }
+            latest.remove(documentId);
+            if (latest.index().removedRatio() > rebuildRemovedRatio) {
+                log.info("In-memory index has {} removed vectors, rebuilding",
+                        String.format("%.0f%%", latest.index().removedRatio() * 100));
+                rebuildAsync();
+            }
+        });
+    }
+
+    /**
+     * Queues a rebuild of the replica from PostgreSQL once the current transaction commits.
+     * The previous replica keeps serving searches until the new one is swapped in.
+     */
+    public void rebuildAsync() {
+        if (!enabled) {
+            return;
+        }
+        // Rebuilds requested before a queued one starts are served by it
+        queueAfterCommit(() -> rebuildQueued.set(true), () -> {
+            if (rebuildQueued.compareAndSet(true, false)) {
+                rebuild();
+            } else {
+                log.debug("In-memory index already rebuilt since the request");
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        writer.shutdownNow();
+        Replica current = replica;
+        replica = null;
+        if (current != null) {
+            current.index().close();
+        }
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        Path file = Path.of(filePath + "." + (++generation % 2));
+
+        Replica next = Replica.empty(new HnswIndex(new OffHeapVectorStorage(file, dimensions), m, efConstruction));
+        try {
+            vectorChunkRepository.forEachChunk(next::add);
+
+            Replica previous = replica;
+            replica = next;
+            if (previous != null) {
+                previous.index().close();
+            }
+
+            log.info("In-memory vector index ready: {} vectors in {}ms",
+                    next.index().size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("In-memory vector index rebuild failed, searches keep using {}: {}",
+                    replica == null ? "pgvector" : "the previous replica", e.getMessage(), e);
+            next.index().close();
+        }
+    }
+
+    private List<HnswIndex.ScoredSlot> searchFiltered(Replica current, float[] embedding, int topK,
+                                                      List<String> documentIds, HrCategory category) {
+        Set<String> allowed = Set.copyOf(documentIds);
+        String categoryName = category == null ? null : category.name();
+        int candidateCount = 0;
+        for (String documentId : allowed) {
+            candidateCount += current.slotsByDocument().getOrDefault(documentId, Set.of()).size();
+        }
+
+        // Selective filter: scoring the few matching vectors is cheaper than walking the graph, and exact
+        if (candidateCount <= exactScanThreshold) {
+            int[] slots = allowed.stream()
+                    .flatMap(id -> current.slotsByDocument().getOrDefault(id, Set.of()).stream())
+                    .filter(slot -> categoryName == null || hasCategory(current, slot, categoryName))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            return current.index().exactSearch(embedding, topK, slots);
+        }
+
+        return current.index().search(embedding, topK, efSearch, slot -> {
+            ChunkEntry entry = current.entriesBySlot().get(slot);
+            return entry != null && allowed.contains(entry.documentId())
+                    && (categoryName == null || categoryName.equals(entry.category()));
+        });
+    }
+
+    private static boolean hasCategory(Replica current, int slot, String categoryName) {
+        ChunkEntry entry = current.entriesBySlot().get(slot);
+        return entry != null && categoryName.equals(entry.category());
+    }
+
+    /**
+     * Once the current transaction commits, runs {@code onCommit} then queues {@code update} on
+     * the writer thread. The update counts as pending from this call until it is applied, or the
+     * transaction rolls back, so searches of the replica meanwhile are known to be possibly stale.
+     */
+    private void queueAfterCommit(Runnable onCommit, Runnable update) {
+        pendingUpdates.incrementAndGet();
+        Runnable apply = () -> {
+            try {
+                onCommit.run();
+                writer.execute(() -> {
+                    try {
+                        update.run();
+                    } finally {
+                        pendingUpdates.decrementAndGet();
+                    }
+                });
+            } catch (Exception e) {
+                pendingUpdates.decrementAndGet();
+                log.warn("Failed to queue in-memory index update: {}", e.getMessage());
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    apply.run();
+                } else {
+                    pendingUpdates.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private static Document toDocument(ChunkEntry entry, float score) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("documentId", entry.documentId());
+        metadata.put("chunkIndex", entry.chunkIndex());
+        if (entry.category() != null) {
+            metadata.put("category", entry.category());
+        }
+        metadata.put("distance", 1.0f - score);
+
+        return Document.builder()
+                .id(entry.chunkId())
+                .text(entry.content())
+                .metadata(metadata)
+                .score((double) score)
+                .build();
+    }
+}
@@ -0,0 +1,236 @@
+package com.hrassistant.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Micro-batching facade over the EmbeddingModel for question embeddings.
+ *
+ * Concurrent requests are collected for up to {@code max-wait-ms} after the first one arrives, or
+ * until {@code max-batch-size} texts are pending, then embedded with a single batch call; each
+ * caller gets its own vector back. Identical texts within a batch are embedded once. At most
+ * {@code max-concurrent-batches} calls are in flight; while they all are, questions keep queueing
+ * and go out in the next, larger batch. A caller waits at most {@code timeout-ms} for its
+ * embedding. The batch sizes, queueing delays and call durations are published as metrics.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QueryEmbeddingService {
+
+    private final EmbeddingModel embeddingModel;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${hr-assistant.embedding.batching.enabled:true}")
+    private boolean batchingEnabled;
+
+    @Value("${hr-assistant.embedding.batching.max-batch-size:32}")
+    private int maxBatchSize;
+
+    @Value("${hr-assistant.embedding.batching.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${hr-assistant.embedding.batching.max-concurrent-batches:4}")
+    private int maxConcurrentBatches;
+
+    @Value("${hr-assistant.embedding.batching.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private final BlockingQueue<PendingEmbedding> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore batchPermits;
+    private Thread dispatcher;
+    private volatile boolean stopped;
+    private DistributionSummary batchSize;
+    private Timer queueWait;
+    private Timer batchCall;
+
+    /**
+     * A text waiting to be embedded, with the future completed by its batch.
+     */
+    private record PendingEmbedding(String text, CompletableFuture<float[]> result, long enqueuedAt) {}
+
+    @PostConstruct
+    public void start() {
+        batchSize = DistributionSummary.builder("hr_assistant.embedding.batch.size")
+                .description("Texts per embedding call")
+                .register(meterRegistry);
+        queueWait = Timer.builder("hr_assistant.embedding.batch.wait")
+                .description("Time a question waits for its embedding batch to be dispatched")
+                .register(meterRegistry);
+        batchCall = Timer.builder("hr_assistant.embedding.batch.call")
+                .description("Duration of one embedding batch call")
+                .register(meterRegistry);
+
+        if (batchingEnabled) {
+            batchPermits = new Semaphore(maxConcurrentBatches);
+            dispatcher = Thread.ofPlatform().name("embedding-batcher").daemon(true).start(this::dispatchLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        batchExecutor.shutdownNow();
+        PendingEmbedding pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(stoppedException());
+        }
+    }
+
+    /**
+     * Embeds one text, sharing the embedding call with concurrent requests.
+     *
+     * @param text The text to embed
+     * @return The embedding
+     */
+    public float[] embed(String text) {
+        return join(embedAsync(text));
+    }
+
+    /**
+     * Embeds several texts, batched together with concurrent requests.
+     *
+     * @param texts The texts to embed
+     * @return The embeddings, in the same order
+     */
+    public List<float[]> embed(List<String> texts) {
+        List<CompletableFuture<float[]>> futures = texts.stream().map(this::embedAsync).toList();
+        return futures.stream().map(this::join).toList();
+    }
+
+    /**
+     * Queues one text for the next embedding batch.
+     *
+     * @param text The text to embed
+     * @return Future completed with the embedding, or failed after {@code timeout-ms}
+     */
+    public CompletableFuture<float[]> embedAsync(String text) {
+        if (stopped) {
+            return CompletableFuture.failedFuture(stoppedException());
+        }
+        if (!batchingEnabled) {
+            try {
+                return CompletableFuture.completedFuture(embedBatch(List.of(text)).get(0));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        CompletableFuture<float[]> result = new CompletableFuture<>();
+        PendingEmbedding pending = new PendingEmbedding(text, result, System.nanoTime());
+        queue.add(pending);
+        // Stopped while queueing: the queue may already have been drained
+        if (stopped && queue.remove(pending)) {
+            result.completeExceptionally(stoppedException());
+        }
+        return result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<PendingEmbedding> batch = new ArrayList<>(maxBatchSize);
+            boolean permitted = false;
+            try {
+                // Wait for a call slot before collecting, so the batch fills while the calls are busy
+                batchPermits.acquire();
+                permitted = true;
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < maxBatchSize) {
+                    PendingEmbedding next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // The call runs off the dispatcher so the next batch can fill while it is in flight
+                batchExecutor.execute(() -> {
+                    try {
+                        process(batch);
+                    } finally {
+                        batchPermits.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result().completeExceptionally(stoppedException()));
+                if (permitted) {
+                    batchPermits.release();
+                }
+            } catch (Exception e) {
+                log.error("Embedding batch dispatch failed: {}", e.getMessage(), e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+                if (permitted) {
+                    batchPermits.release();
+                }
+            }
+        }
+    }
+
+    private void process(List<PendingEmbedding> batch) {
+        long dispatchedAt = System.nanoTime();
+        Map<String, List<PendingEmbedding>> byText = new LinkedHashMap<>();
+        for (PendingEmbedding pending : batch) {
+            queueWait.record(dispatchedAt - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+            byText.computeIfAbsent(pending.text(), text -> new ArrayList<>()).add(pending);
+        }
+
+        List<String> texts = new ArrayList<>(byText.keySet());
+        try {
+            List<float[]> embeddings = embedBatch(texts);
+            for (int i = 0; i < texts.size(); i++) {
+                float[] embedding = embeddings.get(i);
+                byText.get(texts.get(i)).forEach(pending -> pending.result().complete(embedding));
+            }
+            log.debug("Embedded {} questions in one call ({} distinct)", batch.size(), texts.size());
+        } catch (Exception e) {
+            log.warn("Embedding batch of {} texts failed: {}", texts.size(), e.getMessage());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private List<float[]> embedBatch(List<String> texts) {
+        batchSize.record(texts.size());
+        return batchCall.record(() -> embeddingModel.embed(texts));
+    }
+
+    private float[] join(CompletableFuture<float[]> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new IllegalStateException("Embedding timed out after " + timeoutMs + "ms", e.getCause());
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static IllegalStateException stoppedException() {
+        return new IllegalStateException("Embedding service stopped");
+    }
+}
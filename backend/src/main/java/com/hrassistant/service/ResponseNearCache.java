@@ -0,0 +1,240 @@
+package com.hrassistant.service;
+
+import com.hrassistant.model.CachedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * In-process L1 tier in front of the Redis response cache, holding the hottest
+ * {@link CachedResponse} entries (with their embeddings) so repeated questions skip the network
+ * round trip.
+ *
+ * <p>The L1 is bounded to {@code max-entries} in least-recently-used order, and entries are kept
+ * at most {@code ttl-seconds}. Evictions and full invalidations are published on a Redis channel
+ * so every node drops its stale copies, and its semantic cache index entries, within
+ * milliseconds. Newly indexed documents are announced on the same channel, since each node
+ * matches them against its own semantic cache index. Lookups are counted per tier, and the L1 and L2 hit ratios are published as
+ * gauges.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResponseNearCache implements MessageListener {
+
+    private static final String INVALIDATION_CHANNEL = "hr-assistant:cache:invalidation";
+    private static final String ALL_ENTRIES = "*";
+    private static final String SEPARATOR = "|";
+    private static final String NEW_DOCUMENT_PREFIX = "new-document:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final SemanticCacheIndex semanticCacheIndex;
+    private final CacheGeneration cacheGeneration;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${hr-assistant.cache.near-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hr-assistant.cache.near-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${hr-assistant.cache.near-cache.ttl-seconds:60}")
+    private int ttlSeconds;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile Consumer<String> newDocumentHandler = documentId -> { };
+    private Map<String, Entry> entries;
+    private Counter l1Hits;
+    private Counter l2Hits;
+    private Counter misses;
+
+    private record Entry(CachedResponse response, long expiresAt) {}
+
+    @PostConstruct
+    public void start() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        l1Hits = lookupCounter("l1");
+        l2Hits = lookupCounter("l2");
+        misses = lookupCounter("miss");
+        Gauge.builder("hr_assistant.cache.hit_ratio", this, cache -> cache.ratio(cache.l1Hits))
+                .tag("tier", "l1")
+                .description("Share of response cache lookups served from the in-process tier")
+                .register(meterRegistry);
+        Gauge.builder("hr_assistant.cache.hit_ratio", this, cache -> cache.ratio(cache.l2Hits))
+                .tag("tier", "l2")
+                .description("Share of response cache lookups served from Redis")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * @param key Redis key of the cached response
+     * @return The L1 copy of the entry, if present and fresh
+     */
+    public Optional<CachedResponse> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (System.nanoTime() - entry.expiresAt() > 0) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry.response());
+        }
+    }
+
+    /**
+     * Keeps a copy of an entry read from or written to Redis.
+     *
+     * @param key Redis key of the cached response
+     * @param response The cached response
+     */
+    public void put(String key, CachedResponse response) {
+        if (!enabled) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds);
+        synchronized (this) {
+            entries.put(key, new Entry(response, expiresAt));
+        }
+    }
+
+    /**
+     * Drops an entry on every node.
+     *
+     * @param key Redis key of the removed response
+     */
+    public void evict(String key) {
+        evictLocally(key);
+        publish(key);
+    }
+
+    /**
+     * Drops all entries on every node.
+     */
+    public void clear() {
+        clearLocally();
+        publish(ALL_ENTRIES);
+    }
+
+    /**
+     * Announces a newly indexed document to the other nodes.
+     *
+     * @param documentId The new document
+     */
+    public void announceNewDocument(String documentId) {
+        publish(NEW_DOCUMENT_PREFIX + documentId);
+    }
+
+    /**
+     * @param handler Called with the ID of each document indexed by another node
+     */
+    public void onNewDocument(Consumer<String> handler) {
+        this.newDocumentHandler = handler;
+    }
+
+    /** Records a lookup served from the in-process tier. */
+    public void recordL1Hit() {
+        l1Hits.increment();
+    }
+
+    /** Records a lookup served from Redis. */
+    public void recordL2Hit() {
+        l2Hits.increment();
+    }
+
+    /**
+     * @return Share of lookups served from either tier since startup
+     */
+    public double hitRatio() {
+        return ratio(l1Hits) + ratio(l2Hits);
+    }
+
+    /** Records a lookup that found no cached response. */
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Applies an invalidation published by another node.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(SEPARATOR);
+        if (separator < 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        String target = body.substring(separator + 1);
+        if (ALL_ENTRIES.equals(target)) {
+            cacheGeneration.refresh();
+            clearLocally();
+            semanticCacheIndex.clear();
+        } else if (target.startsWith(NEW_DOCUMENT_PREFIX)) {
+            newDocumentHandler.accept(target.substring(NEW_DOCUMENT_PREFIX.length()));
+        } else {
+            evictLocally(target);
+            semanticCacheIndex.remove(target);
+        }
+        log.debug("Applied cache invalidation from another node: {}", target);
+    }
+
+    private synchronized void evictLocally(String key) {
+        entries.remove(key);
+    }
+
+    private synchronized void clearLocally() {
+        entries.clear();
+    }
+
+    private void publish(String target) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + SEPARATOR + target);
+        } catch (Exception e) {
+            log.warn("Failed to publish cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    private Counter lookupCounter(String result) {
+        return Counter.builder("hr_assistant.cache.lookups")
+                .tag("result", result)
+                .description("Response cache lookups by serving tier")
+                .register(meterRegistry);
+    }
+
+    private double ratio(Counter hits) {
+        double total = l1Hits.count() + l2Hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
@@ -0,0 +1,250 @@
+package com.hrassistant.service;
+
+import com.hrassistant.config.ReplicationLagGuard;
+import com.hrassistant.model.HrCategory;
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.repository.VectorChunkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Short-lived cache of vector search results (chunk IDs and scores), independent of the answer
+ * cache, so repeated retrievals, including filtered ones, skip the similarity search.
+ *
+ * <p>Keys combine the normalized question, the sorted document filter, the category, the number
+ * of results and the index generation. The generation is a Redis counter incremented after every
+ * ingestion or deletion commits, so entries computed against an older index are never read again
+ * and simply expire. Results searched while a write may not be visible yet (a read replica or the
+ * in-memory index lagging behind a commit) are returned but not cached, so the new generation
+ * only holds results computed against the committed content.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RetrievalCache {
+
+    private static final String KEY_PREFIX = "hr-assistant:retrieval:";
+    private static final String GENERATION_KEY = KEY_PREFIX + "generation";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s?!.;:]+$");
+
+    private final StringRedisTemplate redisTemplate;
+    private final VectorChunkRepository vectorChunkRepository;
+    private final ReplicationLagGuard replicationLagGuard;
+    private final InMemoryVectorIndex inMemoryVectorIndex;
+
+    @Value("${hr-assistant.retrieval-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hr-assistant.retrieval-cache.ttl-seconds:300}")
+    private int ttlSeconds;
+
+    /**
+     * Cache key of one retrieval, bound to the index generation it was computed against.
+     *
+     * @param key Redis key, null when the cache is disabled or unavailable
+     * @param upToDate Whether every committed write was visible to the indexes when the lookup started
+     */
+    public record Lookup(String key, boolean upToDate) {}
+
+    /**
+     * Returns the cached results of a retrieval, running and caching the search on a miss.
+     *
+     * @param query The search query
+     * @param documentIds Optional document filter
+     * @param category Optional HR category scope
+     * @param topK Number of results requested
+     * @param search Runs the search on a miss
+     * @return Cached or freshly searched results
+     */
+    public List<Document> getOrSearch(String query, List<String> documentIds, HrCategory category, int topK,
+                                      Supplier<List<Document>> search) {
+        Lookup lookup = lookup(query, documentIds, category, topK);
+        Optional<List<Document>> cached = get(lookup);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        List<Document> results = search.get();
+        put(lookup, results);
+        return results;
+    }
+
+    /** Whether a committed write may not be visible yet to the index searches read from. */
+    private boolean isLagging() {
+        return replicationLagGuard.hasRecentWrites() || inMemoryVectorIndex.hasPendingUpdates();
+    }
+
+    /**
+     * Builds the cache key of a retrieval against the current index generation.
+     */
+    public Lookup lookup(String query, List<String> documentIds, HrCategory category, int topK) {
+        if (!enabled) {
+            return new Lookup(null, false);
+        }
+        try {
+            boolean upToDate = !isLagging();
+            String generation = redisTemplate.opsForValue().get(GENERATION_KEY);
+            String filter = documentIds == null ? "" : documentIds.stream().sorted().collect(Collectors.joining(","));
+            String fingerprint = normalize(query) + "\n" + filter + "\n" + category + "\n" + topK;
+            return new Lookup(KEY_PREFIX + (generation != null ? generation : "0") + ":" + sha256(fingerprint),
+                    upToDate);
+        } catch (Exception e) {
+            log.warn("Retrieval cache unavailable: {}", e.getMessage());
+            return new Lookup(null, false);
+        }
+    }
+
+    /**
+     * Returns the cached results of a retrieval, hydrated from the vector store by chunk ID.
+     *
+     * @param lookup The retrieval key
+     * @return The results, best first, or empty on a miss
+     */
+    public Optional<List<Document>> get(Lookup lookup) {
+        if (lookup.key() == null) {
+            return Optional.empty();
+        }
+        try {
+            String value = redisTemplate.opsForValue().get(lookup.key());
+            if (value == null) {
+                log.debug("Retrieval cache MISS");
+                return Optional.empty();
+            }
+
+            List<String> ids = new ArrayList<>();
+            List<Double> scores = new ArrayList<>();
+            for (String line : value.split("\n")) {
+                if (!line.isEmpty()) {
+                    int separator = line.indexOf(' ');
+                    ids.add(line.substring(0, separator));
+                    scores.add(Double.parseDouble(line.substring(separator + 1)));
+                }
+            }
+
+            Map<String, StoredChunk> chunks = new HashMap<>();
+            vectorChunkRepository.findByIds(ids).forEach(chunk -> chunks.put(chunk.id(), chunk));
+            if (chunks.size() != ids.size()) {
+                log.debug("Retrieval cache entry references deleted chunks, ignoring it");
+                return Optional.empty();
+            }
+
+            List<Document> results = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                results.add(toDocument(chunks.get(ids.get(i)), scores.get(i)));
+            }
+            log.debug("Retrieval cache HIT: {} chunks", results.size());
+            return Optional.of(results);
+        } catch (Exception e) {
+            log.warn("Retrieval cache lookup failed: {}, searching the index", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Caches the results of a retrieval (chunk IDs and scores only), unless a write was not
+     * visible to every index when the lookup started or is not now: the search may have read
+     * the content from before it.
+     *
+     * @param lookup The retrieval key
+     * @param results The search results, best first
+     */
+    public void put(Lookup lookup, List<Document> results) {
+        if (lookup.key() == null) {
+            return;
+        }
+        if (!lookup.upToDate() || isLagging()) {
+            log.debug("A write is not yet visible to every index, not caching the retrieval");
+            return;
+        }
+        try {
+            String value = results.stream()
+                    .map(doc -> doc.getId() + " " + (doc.getScore() != null ? doc.getScore() : 0.0))
+                    .collect(Collectors.joining("\n"));
+            redisTemplate.opsForValue().set(lookup.key(), value, Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            log.warn("Failed to cache retrieval results: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves to a new index generation once the current transaction commits, so cached results
+     * computed against the previous content are no longer read.
+     */
+    public void invalidate() {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            incrementGeneration();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                incrementGeneration();
+            }
+        });
+    }
+
+    private void incrementGeneration() {
+        try {
+            Long generation = redisTemplate.opsForValue().increment(GENERATION_KEY);
+            log.debug("Retrieval cache moved to generation {}", generation);
+        } catch (Exception e) {
+            log.warn("Failed to invalidate retrieval cache: {}", e.getMessage());
+        }
+    }
+
+    /** Lower-cases the question, collapses whitespace and drops trailing punctuation. */
+    private static String normalize(String query) {
+        String collapsed = WHITESPACE.matcher(query.strip().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(collapsed).replaceAll("");
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Document toDocument(StoredChunk chunk, double score) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("documentId", chunk.documentId());
+        metadata.put("chunkIndex", chunk.chunkIndex());
+        if (chunk.category() != null) {
+            metadata.put("category", chunk.category());
+        }
+        metadata.put("distance", (float) (1.0 - score));
+
+        return Document.builder()
+                .id(chunk.id())
+                .text(chunk.content())
+                .metadata(metadata)
+                .score(score)
+                .build();
+    }
+}
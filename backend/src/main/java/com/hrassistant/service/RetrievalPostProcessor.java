@@ -0,0 +1,331 @@
+package com.hrassistant.service;
+
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.repository.VectorChunkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Post-retrieval stage that removes redundancy from the chunks sent to the LLM.
+ *
+ * <p>Chunks are selected with Maximal Marginal Relevance, so near-duplicate passages do not
+ * crowd out other relevant ones. Selected chunks of the same document at consecutive positions
+ * are then merged into a single passage without their shared overlap, and a passage cut in the
+ * middle of a sentence is completed with the end of that sentence from the next chunk.
+ *
+ * <p>Chunk embeddings and neighbouring chunks are read from the in-memory replica when it holds
+ * them (see {@link InMemoryVectorIndex}), so post-processing adds no database round trip;
+ * PostgreSQL is only queried for what the replica lacks.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RetrievalPostProcessor {
+
+    private static final String SENTENCE_END = ".!?;:»\"";
+    private static final int MAX_SENTENCE_COMPLETION = 300;
+
+    private final VectorChunkRepository vectorChunkRepository;
+    private final InMemoryVectorIndex inMemoryVectorIndex;
+
+    @Value("${hr-assistant.rag.chunk-overlap:50}")
+    private int chunkOverlap;
+
+    @Value("${hr-assistant.rag.post-processing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hr-assistant.rag.post-processing.mmr-lambda:0.7}")
+    private double mmrLambda;
+
+    @Value("${hr-assistant.rag.post-processing.complete-sentences:true}")
+    private boolean completeSentences;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Selects, merges and completes retrieved chunks.
+     *
+     * @param candidates Retrieved chunks, best first, carrying their score and documentId and chunkIndex metadata
+     * @param maxResults Number of chunks to select
+     * @return Merged passages, best first
+     */
+    public List<Document> process(List<Document> candidates, int maxResults) {
+        if (!enabled || candidates.isEmpty()) {
+            return candidates.stream().limit(maxResults).toList();
+        }
+
+        List<Document> selected = selectMmr(candidates, maxResults);
+        List<Document> passages = mergeAdjacent(selected);
+        if (completeSentences) {
+            passages = completeSentences(passages);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Post-processing kept {} passages from {} candidates ({} chars, top-{} raw: {} chars)",
+                    passages.size(), candidates.size(), totalLength(passages), maxResults,
+                    totalLength(candidates.stream().limit(maxResults).toList()));
+        }
+        return passages;
+    }
+
+    /**
+     * Greedy MMR: each step picks the candidate maximizing
+     * {@code lambda * sim(query, d) - (1 - lambda) * max sim(d, selected)}, where the similarity to
+     * the query is the search score.
+     */
+    private List<Document> selectMmr(List<Document> candidates, int maxResults) {
+        if (candidates.size() <= 1) {
+            return candidates;
+        }
+
+        Map<String, float[]> embeddings = findEmbeddings(candidates.stream().map(Document::getId).toList());
+
+        List<Document> remaining = new ArrayList<>(candidates);
+        List<Document> selected = new ArrayList<>();
+        List<float[]> selectedEmbeddings = new ArrayList<>();
+
+        while (selected.size() < maxResults && !remaining.isEmpty()) {
+            Document best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Document candidate : remaining) {
+                float[] embedding = embeddings.get(candidate.getId());
+                double relevance = candidate.getScore() != null ? candidate.getScore() : 0;
+                double redundancy = 0;
+                if (embedding != null) {
+                    for (float[] other : selectedEmbeddings) {
+                        redundancy = Math.max(redundancy, cosineSimilarity(embedding, other));
+                    }
+                }
+                double score = mmrLambda * relevance - (1 - mmrLambda) * redundancy;
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = candidate;
+                }
+            }
+            remaining.remove(best);
+            selected.add(best);
+            float[] bestEmbedding = embeddings.get(best.getId());
+            if (bestEmbedding != null) {
+                selectedEmbeddings.add(bestEmbedding);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Merges chunks of the same document at consecutive positions, dropping the overlap the
+     * chunker duplicated between them. Passages keep the score of their best chunk.
+     */
+    private List<Document> mergeAdjacent(List<Document> selected) {
+        Map<String, TreeMap<Integer, Document>> byDocument = new LinkedHashMap<>();
+        List<Document> passages = new ArrayList<>();
+        for (Document doc : selected) {
+            String documentId = (String) doc.getMetadata().get("documentId");
+            Integer chunkIndex = chunkIndex(doc);
+            if (documentId == null || chunkIndex == null) {
+                passages.add(doc);
+                continue;
+            }
+            byDocument.computeIfAbsent(documentId, id -> new TreeMap<>()).put(chunkIndex, doc);
+        }
+
+        for (TreeMap<Integer, Document> chunks : byDocument.values()) {
+            List<Document> run = new ArrayList<>();
+            int previousIndex = Integer.MIN_VALUE;
+            for (Map.Entry<Integer, Document> entry : chunks.entrySet()) {
+                if (!run.isEmpty() && entry.getKey() != previousIndex + 1) {
+                    passages.add(merge(run));
+                    run = new ArrayList<>();
+                }
+                run.add(entry.getValue());
+                previousIndex = entry.getKey();
+            }
+            passages.add(merge(run));
+        }
+
+        passages.sort(Comparator.comparingDouble((Document doc) -> doc.getScore() != null ? doc.getScore() : 0)
+                .reversed());
+        return passages;
+    }
+
+    private Document merge(List<Document> run) {
+        if (run.size() == 1) {
+            return run.get(0);
+        }
+
+        StringBuilder text = new StringBuilder(run.get(0).getText());
+        double score = run.get(0).getScore() != null ? run.get(0).getScore() : 0;
+        for (Document next : run.subList(1, run.size())) {
+            appendWithoutOverlap(text, next.getText());
+            if (next.getScore() != null) {
+                score = Math.max(score, next.getScore());
+            }
+        }
+
+        Map<String, Object> metadata = new HashMap<>(run.get(0).getMetadata());
+        metadata.put("lastChunkIndex", chunkIndex(run.get(run.size() - 1)));
+        return Document.builder()
+                .id(run.get(0).getId())
+                .text(text.toString())
+                .metadata(metadata)
+                .score(score)
+                .build();
+    }
+
+    /**
+     * Extends passages whose text stops mid-sentence with the rest of that sentence, taken
+     * from the following chunk of the same document.
+     */
+    private List<Document> completeSentences(List<Document> passages) {
+        List<Map.Entry<String, Integer>> positions = new ArrayList<>();
+        for (Document passage : passages) {
+            String documentId = (String) passage.getMetadata().get("documentId");
+            Integer lastIndex = lastChunkIndex(passage);
+            if (documentId != null && lastIndex != null && endsMidSentence(passage.getText())) {
+                positions.add(Map.entry(documentId, lastIndex + 1));
+            }
+        }
+        if (positions.isEmpty()) {
+            return passages;
+        }
+
+        Map<String, String> nextChunks = new HashMap<>();
+        for (StoredChunk chunk : findByPositions(positions)) {
+            nextChunks.put(chunk.documentId() + "#" + chunk.chunkIndex(), chunk.content());
+        }
+
+        List<Document> completed = new ArrayList<>(passages.size());
+        for (Document passage : passages) {
+            String documentId = (String) passage.getMetadata().get("documentId");
+            Integer lastIndex = lastChunkIndex(passage);
+            String next = lastIndex != null ? nextChunks.get(documentId + "#" + (lastIndex + 1)) : null;
+            if (next == null || !endsMidSentence(passage.getText())) {
+                completed.add(passage);
+                continue;
+            }
+
+            String continuation = next.length() > chunkOverlap ? next.substring(chunkOverlap) : "";
+            int end = sentenceEnd(continuation);
+            if (end < 0) {
+                completed.add(passage);
+                continue;
+            }
+
+            completed.add(Document.builder()
+                    .id(passage.getId())
+                    .text(passage.getText() + continuation.substring(0, end + 1))
+                    .metadata(passage.getMetadata())
+                    .score(passage.getScore())
+                    .build());
+        }
+        return completed;
+    }
+
+    private Map<String, float[]> findEmbeddings(List<String> chunkIds) {
+        Map<String, float[]> embeddings = new HashMap<>(inMemoryVectorIndex.findEmbeddings(chunkIds));
+        List<String> missing = chunkIds.stream().filter(id -> !embeddings.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            embeddings.putAll(vectorChunkRepository.findEmbeddings(missing));
+        }
+        return embeddings;
+    }
+
+    /** Chunks at the given positions; a document held by the replica is never looked up again. */
+    private List<StoredChunk> findByPositions(List<Map.Entry<String, Integer>> positions) {
+        List<StoredChunk> chunks = new ArrayList<>(inMemoryVectorIndex.findByPositions(positions));
+        List<Map.Entry<String, Integer>> missing = positions.stream()
+                .filter(position -> !inMemoryVectorIndex.hasDocument(position.getKey()))
+                .toList();
+        if (!missing.isEmpty()) {
+            chunks.addAll(vectorChunkRepository.findByPositions(missing));
+        }
+        return chunks;
+    }
+
+    /**
+     * Joins consecutive chunks of one document back into its text, without the overlap the
+     * chunker duplicated between them.
+     *
+     * @param contents Chunk contents, in chunk order
+     * @return The joined text
+     */
+    public String joinChunks(List<String> contents) {
+        StringBuilder text = new StringBuilder();
+        for (String content : contents) {
+            if (text.isEmpty()) {
+                text.append(content);
+            } else {
+                appendWithoutOverlap(text, content);
+            }
+        }
+        return text.toString();
+    }
+
+    private void appendWithoutOverlap(StringBuilder text, String next) {
+        if (chunkOverlap > 0 && next.length() >= chunkOverlap
+                && text.length() >= chunkOverlap
+                && text.substring(text.length() - chunkOverlap).equals(next.substring(0, chunkOverlap))) {
+            text.append(next, chunkOverlap, next.length());
+        } else {
+            text.append("\n").append(next);
+        }
+    }
+
+    private static boolean endsMidSentence(String text) {
+        String trimmed = text.stripTrailing();
+        return !trimmed.isEmpty() && SENTENCE_END.indexOf(trimmed.charAt(trimmed.length() - 1)) < 0;
+    }
+
+    /** Index of the first sentence terminator within reach, or -1 if there is none. */
+    private static int sentenceEnd(String text) {
+        int limit = Math.min(text.length(), MAX_SENTENCE_COMPLETION);
+        for (int i = 0; i < limit; i++) {
+            if (SENTENCE_END.indexOf(text.charAt(i)) >= 0 || text.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Integer chunkIndex(Document doc) {
+        Object value = doc.getMetadata().get("chunkIndex");
+        return value instanceof Number number ? number.intValue() : null;
+    }
+
+    private static Integer lastChunkIndex(Document doc) {
+        Object value = doc.getMetadata().get("lastChunkIndex");
+        return value instanceof Number number ? number.intValue() : chunkIndex(doc);
+    }
+
+    private static int totalLength(List<Document> documents) {
+        return documents.stream().mapToInt(doc -> doc.getText().length()).sum();
+    }
+
+    private static double cosineSimilarity(float[] a, float[] b) {
+        if (a == null || b == null || a.length != b.length) {
+            return 0;
+        }
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
@@ -0,0 +1,145 @@
+package com.hrassistant.service;
+
+import com.hrassistant.exception.HrAssistantException;
+import com.hrassistant.model.SearchHit;
+import com.hrassistant.model.SearchQuery;
+import com.hrassistant.model.SearchResult;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Retrieval-only search: returns the passages matching a query without classification or
+ * generation, so integrations get HR passages without using any LLM capacity.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    private final QueryEmbeddingService queryEmbeddingService;
+    private final VectorStoreService vectorStoreService;
+    private final RetrievalCache retrievalCache;
+    private final DocumentCatalog documentCatalog;
+
+    @Value("${hr-assistant.search.max-batch-size:32}")
+    private int maxBatchSize;
+
+    @Value("${hr-assistant.rag.max-results:5}")
+    private int maxResults;
+
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Searches the passages matching one query.
+     *
+     * @param query The query and optional document filter
+     * @return Matching passages, best first
+     */
+    public SearchResult search(SearchQuery query) {
+        return searchBatch(List.of(query)).get(0);
+    }
+
+    /**
+     * Searches the passages matching several queries. Queries found in the retrieval cache are
+     * answered from it; the embeddings of the others are computed in a single embedding call,
+     * then their vector searches run concurrently.
+     *
+     * @param queries The queries, each with an optional document filter
+     * @return One result per query, in request order
+     */
+    public List<SearchResult> searchBatch(List<SearchQuery> queries) {
+        if (queries.size() > maxBatchSize) {
+            throw new HrAssistantException(HrAssistantException.ErrorCode.INVALID_INPUT,
+                    "Un lot ne peut pas contenir plus de " + maxBatchSize + " requêtes");
+        }
+
+        List<RetrievalCache.Lookup> lookups = new ArrayList<>(queries.size());
+        List<List<Document>> matches = new ArrayList<>(queries.size());
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            SearchQuery query = queries.get(i);
+            RetrievalCache.Lookup lookup = retrievalCache.lookup(query.getQuery(), query.getDocumentIds(), null, maxResults);
+            lookups.add(lookup);
+            matches.add(retrievalCache.get(lookup).orElse(null));
+            if (matches.get(i) == null) {
+                misses.add(i);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            List<float[]> embeddings = embed(misses.stream().map(i -> queries.get(i).getQuery()).toList());
+
+            List<CompletableFuture<List<Document>>> futures = new ArrayList<>(misses.size());
+            for (int m = 0; m < misses.size(); m++) {
+                SearchQuery query = queries.get(misses.get(m));
+                float[] embedding = embeddings.get(m);
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> vectorStoreService.search(embedding, query.getDocumentIds()), searchExecutor));
+            }
+
+            try {
+                for (int m = 0; m < misses.size(); m++) {
+                    int index = misses.get(m);
+                    List<Document> results = futures.get(m).join();
+                    retrievalCache.put(lookups.get(index), results);
+                    matches.set(index, results);
+                }
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        List<SearchResult> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            results.add(toResult(queries.get(i), matches.get(i)));
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void close() {
+        searchExecutor.shutdownNow();
+    }
+
+    private List<float[]> embed(List<String> texts) {
+        try {
+            return queryEmbeddingService.embed(texts);
+        } catch (Exception e) {
+            log.error("Failed to embed {} search queries: {}", texts.size(), e.getMessage());
+            throw new HrAssistantException(HrAssistantException.ErrorCode.EMBEDDING_ERROR,
+                    "Le service d'embedding est temporairement indisponible", e);
+        }
+    }
+
+    private SearchResult toResult(SearchQuery query, List<Document> matches) {
+        return SearchResult.builder()
+                .query(query.getQuery())
+                .hits(matches.stream().map(this::toHit).toList())
+                .build();
+    }
+
+    private SearchHit toHit(Document doc) {
+        Object chunkIndex = doc.getMetadata().get("chunkIndex");
+        String documentId = (String) doc.getMetadata().get("documentId");
+        return SearchHit.builder()
+                .chunkId(doc.getId())
+                .documentId(documentId)
+                .documentName(documentCatalog.displayName(documentId))
+                .chunkIndex(chunkIndex instanceof Number number ? number.intValue() : null)
+                .category((String) doc.getMetadata().get("category"))
+                .score(doc.getScore())
+                .content(doc.getText())
+                .build();
+    }
+}
@@ -0,0 +1,260 @@
+package com.hrassistant.service;
+
+import com.hrassistant.index.HnswIndex;
+import com.hrassistant.index.OnHeapVectorStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process HNSW index over the question embeddings of the semantic cache, so a lookup finds
+ * the closest cached question without listing Redis keys or reading every cached response.
+ *
+ * <p>Redis stays the source of truth. The index is rebuilt from a SCAN of the current cache
+ * generation at startup and periodically, which also picks up answers cached by other instances and drops
+ * expired ones; in between, answers cached by this instance are added as they are written.
+ * Keys whose entry has expired may still be returned and are removed when the caller finds
+ * them missing.
+ *
+ * <p>Entries of document-filtered questions are grouped by scope (see {@link CacheService}):
+ * they are excluded from the graph walk of unfiltered lookups, and a scoped lookup compares the
+ * few entries of its scope exhaustively.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SemanticCacheIndex {
+
+    private static final int SCAN_BATCH_SIZE = 500;
+    private static final String GLOBAL_SCOPE = "";
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final CacheGeneration cacheGeneration;
+
+    @Value("${spring.ai.vectorstore.pgvector.dimensions:768}")
+    private int dimensions;
+
+    @Value("${hr-assistant.cache.index.m:16}")
+    private int m;
+
+    @Value("${hr-assistant.cache.index.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${hr-assistant.cache.index.ef-search:50}")
+    private int efSearch;
+
+    private volatile Graph graph;
+    private List<Map.Entry<String, float[]>> pendingDuringRebuild;
+    private int clearCount;
+
+    /**
+     * A cached question close to the query.
+     *
+     * @param key Redis key of the cached response
+     * @param score Cosine similarity between the questions
+     */
+    public record Match(String key, double score) {}
+
+    /**
+     * One built generation of the index: the graph plus the slot to key and scope lookups.
+     */
+    private record Graph(HnswIndex index, Map<Integer, String> keysBySlot, Map<String, Integer> slotsByKey,
+                         Map<String, Set<Integer>> slotsByScope) {
+
+        void add(String key, float[] embedding) {
+            if (slotsByKey.containsKey(key)) {
+                return;
+            }
+            int slot = index.insert(embedding);
+            keysBySlot.put(slot, key);
+            slotsByKey.put(key, slot);
+            slotsByScope.computeIfAbsent(scopeOf(key), scope -> ConcurrentHashMap.newKeySet()).add(slot);
+        }
+
+        void remove(String key) {
+            Integer slot = slotsByKey.remove(key);
+            if (slot != null) {
+                index.remove(slot);
+                keysBySlot.remove(slot);
+                Set<Integer> scopeSlots = slotsByScope.get(scopeOf(key));
+                if (scopeSlots != null) {
+                    scopeSlots.remove(slot);
+                }
+            }
+        }
+
+        Set<Integer> slotsOf(String scope) {
+            return slotsByScope.getOrDefault(scope, Set.of());
+        }
+
+        private static String scopeOf(String key) {
+            String scope = CacheService.scopeOf(key);
+            return scope != null ? scope : GLOBAL_SCOPE;
+        }
+    }
+
+    /**
+     * Returns the cached unfiltered questions closest to the query, above the similarity threshold.
+     *
+     * @param embedding The query embedding
+     * @param k Maximum number of matches
+     * @param minScore Similarity the matches must exceed
+     * @return Matches, best first; empty until the index is first built
+     */
+    public List<Match> nearest(float[] embedding, int k, double minScore) {
+        return nearest(embedding, k, minScore, null);
+    }
+
+    /**
+     * Returns the cached questions of a scope closest to the query, above the similarity threshold.
+     *
+     * @param embedding The query embedding
+     * @param k Maximum number of matches
+     * @param minScore Similarity the matches must exceed
+     * @param scope Scope of the document filter, or null for unfiltered questions
+     * @return Matches, best first; empty until the index is first built
+     */
+    public List<Match> nearest(float[] embedding, int k, double minScore, String scope) {
+        Graph current = graph;
+        if (current == null) {
+            return List.of();
+        }
+        List<HnswIndex.ScoredSlot> hits;
+        if (scope == null) {
+            Set<Integer> globalSlots = current.slotsOf(GLOBAL_SCOPE);
+            hits = current.index().search(embedding, k, efSearch, globalSlots::contains);
+        } else {
+            int[] scopeSlots = current.slotsOf(scope).stream().mapToInt(Integer::intValue).toArray();
+            hits = current.index().exactSearch(embedding, k, scopeSlots);
+        }
+        List<Match> matches = new ArrayList<>();
+        for (HnswIndex.ScoredSlot hit : hits) {
+            String key = current.keysBySlot().get(hit.slot());
+            if (key != null && hit.score() > minScore) {
+                matches.add(new Match(key, hit.score()));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Indexes a response just written to the cache.
+     *
+     * @param key Redis key of the cached response
+     * @param embedding The question embedding
+     */
+    public synchronized void add(String key, float[] embedding) {
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.add(Map.entry(key, embedding));
+        }
+        if (graph != null) {
+            graph.add(key, embedding);
+        }
+    }
+
+    /**
+     * Drops a key whose cache entry no longer exists.
+     *
+     * @param key Redis key of the cached response
+     */
+    public synchronized void remove(String key) {
+        if (graph != null) {
+            graph.remove(key);
+        }
+    }
+
+    /**
+     * Empties the index after the cache was invalidated.
+     */
+    public synchronized void clear() {
+        clearCount++;
+        graph = newGraph();
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.clear();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the cache entries currently in Redis.
+     */
+    @Scheduled(fixedDelayString = "${hr-assistant.cache.index.rebuild-interval-ms:300000}", initialDelay = 0)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int clearCountAtStart;
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+            clearCountAtStart = clearCount;
+        }
+        try {
+            Graph scanned = newGraph();
+            List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(cacheGeneration.keyPrefix() + "*")
+                    .count(SCAN_BATCH_SIZE)
+                    .build();
+            try (Cursor<String> keys = redisTemplate.scan(options)) {
+                while (keys.hasNext()) {
+                    batch.add(keys.next());
+                    if (batch.size() == SCAN_BATCH_SIZE) {
+                        load(scanned, batch);
+                        batch.clear();
+                    }
+                }
+            }
+            load(scanned, batch);
+
+            Graph rebuilt;
+            synchronized (this) {
+                // Entries scanned before an invalidation are gone: keep only what was cached since
+                rebuilt = clearCount == clearCountAtStart ? scanned : newGraph();
+                pendingDuringRebuild.forEach(entry -> rebuilt.add(entry.getKey(), entry.getValue()));
+                graph = rebuilt;
+            }
+            log.debug("Semantic cache index rebuilt: {} entries in {}ms",
+                    rebuilt.slotsByKey().size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Failed to rebuild semantic cache index: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+            }
+        }
+    }
+
+    /** Reads the embeddings of a batch of entries in one pipelined round trip; bodies are not read. */
+    private void load(Graph target, List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        byte[] field = CachedResponseCodec.EMBEDDING_FIELD.getBytes(StandardCharsets.UTF_8);
+        List<Object> embeddings = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.hashCommands().hGet(key.getBytes(StandardCharsets.UTF_8), field);
+            }
+            return null;
+        });
+        for (int i = 0; i < keys.size(); i++) {
+            if (embeddings.get(i) instanceof byte[] bytes && bytes.length == dimensions * Short.BYTES) {
+                target.add(keys.get(i), CachedResponseCodec.decodeEmbedding(bytes));
+            }
+        }
+    }
+
+    private Graph newGraph() {
+        return new Graph(new HnswIndex(new OnHeapVectorStorage(dimensions), m, efConstruction),
+                new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+}
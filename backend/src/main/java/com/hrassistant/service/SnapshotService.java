@@ -0,0 +1,390 @@
+package com.hrassistant.service;
+
+import com.hrassistant.config.ReplicationLagGuard;
+import com.hrassistant.exception.HrAssistantException;
+import com.hrassistant.model.Document;
+import com.hrassistant.model.DocumentStatus;
+import com.hrassistant.model.DocumentType;
+import com.hrassistant.model.SnapshotImportResult;
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.repository.DocumentRepository;
+import com.hrassistant.repository.VectorChunkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports and imports the document catalog and the vector store as a binary snapshot, so a new
+ * environment can be seeded without re-uploading documents or calling the embedding model.
+ *
+ * <p>Format (version 2, GZIP-compressed, big-endian): magic {@code HRSNAP}, version, embedding
+ * model, dimensions, creation time; the document count followed by each document row and
+ * optionally its original file; then one record per chunk (flag byte 1, id, document ID, chunk
+ * index, category, content, float32 embedding) terminated by a 0 flag byte. Strings are
+ * length-prefixed UTF-8, -1 meaning null.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SnapshotService {
+
+    private static final byte[] MAGIC = "HRSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 2;
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    private final DocumentRepository documentRepository;
+    private final VectorChunkRepository vectorChunkRepository;
+    private final InMemoryVectorIndex inMemoryVectorIndex;
+    private final RetrievalCache retrievalCache;
+    private final CacheService cacheService;
+    private final CacheWarmer cacheWarmer;
+    private final ReplicationLagGuard replicationLagGuard;
+    private final DocumentCatalog documentCatalog;
+
+    @Value("${spring.ai.vectorstore.pgvector.dimensions:768}")
+    private int dimensions;
+
+    @Value("${spring.ai.ollama.embedding.model:}")
+    private String embeddingModel;
+
+    @Value("${hr-assistant.documents.storage-path:./uploads}")
+    private String storagePath;
+
+    /**
+     * Streams a snapshot of the catalog and the vector store. Both are read in a single
+     * repeatable-read transaction, so every chunk exported belongs to an exported document
+     * and every exported document has all its chunks.
+     *
+     * @param target Stream receiving the compressed snapshot (not closed)
+     * @param includeFiles Whether to embed the original uploaded files
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportSnapshot(OutputStream target, boolean includeFiles) throws IOException {
+        long start = System.currentTimeMillis();
+        GZIPOutputStream gzip = new GZIPOutputStream(target, 64 * 1024);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, 64 * 1024));
+
+        out.write(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, embeddingModel);
+        out.writeInt(dimensions);
+        out.writeLong(System.currentTimeMillis());
+
+        List<Document> documents = documentRepository.findAll();
+        out.writeInt(documents.size());
+        for (Document document : documents) {
+            writeDocument(out, document, includeFiles);
+        }
+
+        long[] chunkCount = {0};
+        try {
+            vectorChunkRepository.forEachChunk(chunk -> {
+                try {
+                    writeChunk(out, chunk);
+                    chunkCount[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.writeByte(0);
+
+        out.flush();
+        gzip.finish();
+        log.info("Snapshot exported: {} documents, {} chunks in {}ms",
+                documents.size(), chunkCount[0], System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Loads a snapshot into the catalog and the vector store, without computing any embedding.
+     * Documents already present are skipped along with their chunks.
+     *
+     * @param source Stream providing the compressed snapshot
+     * @return Import counts
+     */
+    @Transactional
+    public SnapshotImportResult importSnapshot(InputStream source) throws IOException {
+        long start = System.currentTimeMillis();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(source, 64 * 1024)));
+
+        readHeader(in);
+
+        List<Path> writtenFiles = new ArrayList<>();
+        deleteOnRollback(writtenFiles);
+
+        int documentCount = in.readInt();
+        Set<String> imported = new HashSet<>();
+        int skipped = 0;
+        for (int i = 0; i < documentCount; i++) {
+            Document document = readDocument(in);
+            long fileSize = in.readLong();
+            if (documentRepository.existsById(document.getId())) {
+                if (fileSize >= 0) {
+                    in.skipNBytes(fileSize);
+                }
+                skipped++;
+                continue;
+            }
+            if (fileSize >= 0) {
+                readFile(in, document, fileSize, writtenFiles);
+            }
+            documentRepository.save(document);
+            documentCatalog.put(document);
+            imported.add(document.getId());
+        }
+
+        long chunksImported = 0;
+        List<StoredChunk> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        while (in.readByte() == 1) {
+            StoredChunk chunk = readChunk(in);
+            if (!imported.contains(chunk.documentId())) {
+                continue;
+            }
+            batch.add(chunk);
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                chunksImported += vectorChunkRepository.insertChunks(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            chunksImported += vectorChunkRepository.insertChunks(batch);
+        }
+
+        if (!imported.isEmpty()) {
+            imported.forEach(replicationLagGuard::recordWrite);
+            inMemoryVectorIndex.rebuildAsync();
+            retrievalCache.invalidate();
+            cacheService.invalidateAll();
+            cacheWarmer.onIndexChanged();
+        }
+
+        SnapshotImportResult result = new SnapshotImportResult(
+                imported.size(), skipped, chunksImported, System.currentTimeMillis() - start);
+        log.info("Snapshot imported: {}", result);
+        return result;
+    }
+
+    private void readHeader(DataInputStream in) throws IOException {
+        byte[] magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw invalid("Not an HR Assistant snapshot");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw invalid("Unsupported snapshot version " + version + " (expected " + FORMAT_VERSION + ")");
+        }
+        String snapshotModel = readString(in);
+        int snapshotDimensions = in.readInt();
+        in.readLong();
+
+        if (snapshotDimensions != dimensions) {
+            throw invalid("Snapshot embeddings have " + snapshotDimensions
+                    + " dimensions, the configured model uses " + dimensions);
+        }
+        if (!embeddingModel.isEmpty() && snapshotModel != null && !snapshotModel.isEmpty()
+                && !snapshotModel.equals(embeddingModel)) {
+            throw invalid("Snapshot embeddings come from model " + snapshotModel
+                    + ", the configured model is " + embeddingModel);
+        }
+    }
+
+    private void writeDocument(DataOutputStream out, Document document, boolean includeFiles) throws IOException {
+        writeString(out, document.getId());
+        writeString(out, document.getFilename());
+        writeString(out, document.getType().name());
+        writeString(out, document.getStatus().name());
+        out.writeLong(document.getSize());
+        out.writeInt(document.getChunkCount());
+        writeString(out, document.getUploadedAt() != null ? document.getUploadedAt().toString() : null);
+        writeString(out, document.getIndexedAt() != null ? document.getIndexedAt().toString() : null);
+        writeString(out, document.getErrorMessage());
+        writeString(out, document.getCategory());
+        writeString(out, document.getFilePath());
+
+        Path file = includeFiles && document.getFilePath() != null
+                ? Paths.get(storagePath, document.getFilePath())
+                : null;
+        if (file != null && Files.isRegularFile(file)) {
+            out.writeLong(Files.size(file));
+            Files.copy(file, out);
+        } else {
+            out.writeLong(-1);
+        }
+    }
+
+    /** Reads a document row; the file that may follow is read by the caller. */
+    private Document readDocument(DataInputStream in) throws IOException {
+        return Document.builder()
+                .id(readString(in))
+                .filename(readString(in))
+                .type(readEnum(in, DocumentType.class))
+                .status(readEnum(in, DocumentStatus.class))
+                .size(in.readLong())
+                .chunkCount(in.readInt())
+                .uploadedAt(readDateTime(in))
+                .indexedAt(readDateTime(in))
+                .errorMessage(readString(in))
+                .category(readString(in))
+                .filePath(readString(in))
+                .build();
+    }
+
+    /**
+     * Writes a document's original file under the storage directory, unless it already exists.
+     * The path comes from the snapshot and must stay within the storage directory.
+     */
+    private void readFile(DataInputStream in, Document document, long fileSize, List<Path> writtenFiles)
+            throws IOException {
+        Path file = resolveStoragePath(document.getFilePath());
+        if (Files.exists(file)) {
+            in.skipNBytes(fileSize);
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        writtenFiles.add(file);
+        try (OutputStream fileOut = Files.newOutputStream(file)) {
+            copy(in, fileOut, fileSize);
+        }
+    }
+
+    private Path resolveStoragePath(String filePath) {
+        if (filePath == null || filePath.isBlank()) {
+            throw invalid("Snapshot document file has no path");
+        }
+        Path root = Path.of(storagePath).toAbsolutePath().normalize();
+        Path file = root.resolve(filePath).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw invalid("Snapshot document path escapes the storage directory: " + filePath);
+        }
+        return file;
+    }
+
+    /** Removes the files written by an import whose transaction rolls back. */
+    private static void deleteOnRollback(List<Path> writtenFiles) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                for (Path file : writtenFiles) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        log.warn("Failed to remove file of rolled back import {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private void writeChunk(DataOutputStream out, StoredChunk chunk) throws IOException {
+        out.writeByte(1);
+        writeString(out, chunk.id());
+        writeString(out, chunk.documentId());
+        out.writeInt(chunk.chunkIndex());
+        writeString(out, chunk.category());
+        writeString(out, chunk.content());
+        for (float value : chunk.embedding()) {
+            out.writeFloat(value);
+        }
+    }
+
+    private StoredChunk readChunk(DataInputStream in) throws IOException {
+        String id = readString(in);
+        String documentId = readString(in);
+        int chunkIndex = in.readInt();
+        String category = readString(in);
+        String content = readString(in);
+        float[] embedding = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            embedding[i] = in.readFloat();
+        }
+        return new StoredChunk(id, documentId, chunkIndex, category, content, embedding);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream in, Class<E> type) throws IOException {
+        String value = readString(in);
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw invalid("Unknown " + type.getSimpleName() + " in snapshot: " + value);
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        String value = readString(in);
+        try {
+            return value != null ? LocalDateTime.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw invalid("Invalid date in snapshot: " + value);
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw invalid("Snapshot is truncated");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private static HrAssistantException invalid(String message) {
+        return new HrAssistantException(HrAssistantException.ErrorCode.INVALID_INPUT, message);
+    }
+}
@@ -1,10 +1,16 @@
 package com.hrassistant.service;
 
 import com.hrassistant.exception.HrAssistantException;
+import com.hrassistant.model.AnswerDependencies;
 import com.hrassistant.model.ChatRequest;
+import com.hrassistant.model.ConfidenceLevel;
+import com.hrassistant.model.GuardrailResult;
+import com.hrassistant.model.HrCategory;
+import com.hrassistant.model.PackedContext;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
@@ -23,8 +29,14 @@ public class StreamingRagService {
 
   private final GuardrailService guardrailService;
   private final VectorStoreService vectorStoreService;
+  private final WholeDocumentRetriever wholeDocumentRetriever;
+  private final ContextPacker contextPacker;
+  private final DocumentCatalog documentCatalog;
   private final ChatModel chatModel;
 
+  @Value("${hr-assistant.rag.category-routing.enabled:true}")
+  private boolean categoryRoutingEnabled;
+
   @Value("classpath:prompts/rag-prompt.txt")
   private Resource promptTemplate;
 
@@ -32,9 +44,20 @@ public class StreamingRagService {
    * Processes a chat request using RAG pipeline with streaming response.
    *
    * <p>Pipeline: 1. Validate question 2. Search similar chunks (embedding done internally by
-   * VectorStore) 3. Build context 4. Stream response token by token 5. Add sources at end
+   * VectorStore), or load small filtered documents whole 3. Build context 4. Stream response token by token 5. Add sources at end
    */
   public Flux<String> chatStream(ChatRequest request) {
+    return chatStream(request, dependencies -> {});
+  }
+
+  /**
+   * Processes a chat request, reporting the documents and scores the answer depends on.
+   *
+   * @param request The chat request
+   * @param dependencies Receives the answer's dependencies once its context is assembled
+   * @return Flux of response tokens
+   */
+  public Flux<String> chatStream(ChatRequest request, Consumer<AnswerDependencies> dependencies) {
     String question = request.getQuestion();
     List<String> documentIds = request.getDocumentIds();
     log.info(
@@ -42,28 +65,43 @@ public class StreamingRagService {
 
     try {
       // Step 1: Validate question
-      guardrailService.validateQuestion(question);
-
-      // Step 2: Search similar chunks (with optional document filter)
-      List<Document> matches = vectorStoreService.search(question, documentIds);
+      GuardrailResult classification = guardrailService.validateQuestion(question);
+
+      // Step 2: Use the whole text of small filtered documents, otherwise search similar chunks
+      // (conversation working set first, then with optional document filter or predicted
+      // category), diversified and merged into non-redundant passages
+      List<Document> matches =
+          wholeDocumentRetriever
+              .retrieve(documentIds)
+              .orElseGet(
+                  () ->
+                      vectorStoreService.searchForContext(
+                          question,
+                          documentIds,
+                          routeCategory(classification, documentIds),
+                          request.getConversationId()));
 
       // Check if relevant information was found
       if (matches.isEmpty()) {
         log.warn("No relevant documents found for question: {}", question);
-        return Flux.just(
-            "I could not find relevant information in the available documents to answer your"
-                + " question. I suggest contacting the HR department directly for a precise"
-                + " answer.");
+        dependencies.accept(AnswerDependencies.none());
+        return Flux.just(NO_RELEVANT_INFORMATION_MESSAGE);
       }
 
-      // Step 3: Build context from retrieved chunks
-      String context = buildContext(matches);
+      // Step 3: Build context from retrieved chunks, within the prompt token budget
+      PackedContext context = contextPacker.pack(question, matches);
+      if (context.passages().isEmpty()) {
+        log.warn("No retrieved passage fits the context budget for question: {}", question);
+        dependencies.accept(AnswerDependencies.none());
+        return Flux.just(NO_RELEVANT_INFORMATION_MESSAGE);
+      }
 
       // Step 4: Build prompt
-      String promptText = buildPrompt(context, question);
+      String promptText = buildPrompt(context.text(), question);
 
       // Step 5: Extract sources for later
-      List<String> sources = extractSources(matches);
+      List<String> sources = extractSources(context.passages());
+      dependencies.accept(dependenciesOf(context.passages()));
 
       // Step 6: Stream response using Spring AI ChatModel
       return streamResponse(promptText, sources);
@@ -79,6 +117,10 @@ public class StreamingRagService {
     }
   }
 
+  private static final String NO_RELEVANT_INFORMATION_MESSAGE =
+      "I could not find relevant information in the available documents to answer your"
+          + " question. I suggest contacting the HR department directly for a precise answer.";
+
   private static final String OUTPUT_FALLBACK_MESSAGE =
       "Je ne suis pas en mesure de répondre à cette question. "
           + "Veuillez contacter le service RH directement.";
@@ -115,6 +157,22 @@ public class StreamingRagService {
                     error));
   }
 
+  /**
+   * Picks the HR category to scope the search to: only for confident, specific classifications of
+   * unfiltered questions. An explicit document filter always takes precedence.
+   */
+  private HrCategory routeCategory(GuardrailResult classification, List<String> documentIds) {
+    boolean hasDocumentFilter = documentIds != null && !documentIds.isEmpty();
+    if (!categoryRoutingEnabled
+        || hasDocumentFilter
+        || classification.confidence() != ConfidenceLevel.HIGH
+        || classification.category() == HrCategory.GENERAL_RH) {
+      return null;
+    }
+    log.debug("Routing search to category {}", classification.category());
+    return classification.category();
+  }
+
   /** Builds the sources text to append at the end of the response. */
   private String buildSourcesText(List<String> sources) {
     if (sources.isEmpty()) {
@@ -124,20 +182,6 @@ public class StreamingRagService {
         + String.join("\n", sources.stream().map(source -> "- " + source).toList());
   }
 
-  /** Builds context from retrieved documents. */
-  private String buildContext(List<Document> matches) {
-    return String.join(
-        "\n\n",
-        matches.stream()
-            .map(
-                doc -> {
-                  String docName = (String) doc.getMetadata().get("documentName");
-                  String text = doc.getText();
-                  return String.format("[Source: %s]\n%s", docName, text);
-                })
-            .toList());
-  }
-
   /** Builds the final prompt by replacing template variables. */
   private String buildPrompt(String context, String question) {
     try {
@@ -150,11 +194,27 @@ public class StreamingRagService {
     }
   }
 
-  /** Extracts unique document names from matches. */
+  /** Documents of the passages used and the score of the weakest one. */
+  private AnswerDependencies dependenciesOf(List<Document> passages) {
+    List<String> documentIds =
+        passages.stream()
+            .map(doc -> (String) doc.getMetadata().get("documentId"))
+            .distinct()
+            .toList();
+    double minScore =
+        passages.stream()
+            .mapToDouble(doc -> doc.getScore() != null ? doc.getScore() : 0)
+            .min()
+            .orElse(0);
+    return new AnswerDependencies(documentIds, minScore);
+  }
+
+  /** Extracts unique document names from matches, resolved through the document catalog. */
   private List<String> extractSources(List<Document> matches) {
     return matches.stream()
-        .map(doc -> (String) doc.getMetadata().get("documentName"))
+        .map(doc -> (String) doc.getMetadata().get("documentId"))
         .distinct()
+        .map(documentCatalog::displayName)
         .toList();
   }
 }
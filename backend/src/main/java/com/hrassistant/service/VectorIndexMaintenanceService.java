@@ -0,0 +1,226 @@
+package com.hrassistant.service;
+
+import com.hrassistant.model.VectorIndexHealth;
+import com.hrassistant.model.VectorTableStats;
+import com.hrassistant.repository.VectorChunkRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@code vector_store} table and its HNSW indexes healthy.
+ *
+ * Deletes and metadata rewrites leave dead tuples in the table and dead entries in the HNSW
+ * graphs, which slowly degrade search latency. The scheduler tracks the dead-tuple ratio and the
+ * index size per live row (relative to the size right after the last reindex, persisted in
+ * {@code vector_index_baseline} so it survives restarts), and during the
+ * configured low-traffic window runs {@code VACUUM (ANALYZE)} and {@code REINDEX CONCURRENTLY}
+ * when their thresholds are exceeded. The same figures are published as gauges, next to the
+ * vector search timer, so latency regressions can be tied to index state. Until a baseline has
+ * been measured, the first maintenance run rebuilds the indexes once to measure it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VectorIndexMaintenanceService {
+
+    private final VectorChunkRepository vectorChunkRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${hr-assistant.maintenance.enabled:false}")
+    private boolean enabled;
+
+    @Value("${hr-assistant.maintenance.window-start:02:00}")
+    private LocalTime windowStart;
+
+    @Value("${hr-assistant.maintenance.window-end:05:00}")
+    private LocalTime windowEnd;
+
+    @Value("${hr-assistant.maintenance.vacuum-dead-tuple-ratio:0.1}")
+    private double vacuumDeadTupleRatio;
+
+    @Value("${hr-assistant.maintenance.reindex-bloat-factor:1.5}")
+    private double reindexBloatFactor;
+
+    private volatile VectorTableStats stats;
+    private volatile double baselineIndexBytesPerLiveTuple;
+    private volatile Instant lastVacuum;
+    private volatile Instant lastReindex;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("hr_assistant.vector_store.dead_tuple_ratio", this,
+                        service -> service.stats != null ? service.stats.deadTupleRatio() : 0)
+                .description("Share of dead rows in vector_store")
+                .register(meterRegistry);
+        Gauge.builder("hr_assistant.vector_store.index_size", this,
+                        service -> service.stats != null ? service.stats.indexSizeBytes() : 0)
+                .description("Total size of the HNSW indexes on vector_store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("hr_assistant.vector_store.index_bloat_factor", this, VectorIndexMaintenanceService::bloatFactor)
+                .description("HNSW index bytes per live row relative to the last reindex")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the index size measured after the last reindex, if any.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadBaseline() {
+        try {
+            vectorChunkRepository.createIndexBaselineTable();
+            Double baseline = vectorChunkRepository.findIndexBaseline();
+            if (baseline != null) {
+                baselineIndexBytesPerLiveTuple = baseline;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load vector index baseline: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Refreshes the statistics and, inside the low-traffic window, runs the maintenance that is due.
+     */
+    @Scheduled(cron = "${hr-assistant.maintenance.check-cron:0 */15 * * * *}")
+    public void scheduledMaintenance() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            refreshStats();
+            if (isInWindow(LocalTime.now())) {
+                runMaintenance(false);
+            }
+        } catch (Exception e) {
+            log.warn("Vector index maintenance check failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the maintenance that is due, or all of it when forced, unless another instance is
+     * already maintaining the index.
+     *
+     * @param force Whether to vacuum and reindex regardless of the thresholds
+     * @return The index health after maintenance
+     */
+    public VectorIndexHealth runMaintenance(boolean force) {
+        VectorTableStats current = refreshStats();
+        boolean vacuum = force || isVacuumDue(current);
+        boolean reindex = force || isReindexDue(current);
+        if (!vacuum && !reindex) {
+            return health();
+        }
+
+        boolean ran = vectorChunkRepository.runWithMaintenanceLock(session -> {
+            if (vacuum) {
+                long start = System.currentTimeMillis();
+                session.vacuumAnalyze();
+                lastVacuum = Instant.now();
+                log.info("Vacuumed vector_store in {}ms (dead tuple ratio was {})",
+                        System.currentTimeMillis() - start, String.format("%.3f", current.deadTupleRatio()));
+            }
+            if (reindex) {
+                for (String indexName : vectorChunkRepository.hnswIndexNames()) {
+                    long start = System.currentTimeMillis();
+                    session.reindexConcurrently(indexName);
+                    log.info("Reindexed {} in {}ms", indexName, System.currentTimeMillis() - start);
+                }
+                lastReindex = Instant.now();
+                saveBaseline();
+            }
+        });
+        if (!ran) {
+            log.info("Vector index maintenance already running on another instance, skipping");
+        }
+
+        refreshStats();
+        return health();
+    }
+
+    /**
+     * @return Current statistics, thresholds status and vector search latency
+     */
+    public VectorIndexHealth health() {
+        VectorTableStats current = stats != null ? stats : refreshStats();
+
+        long count = 0;
+        double totalMs = 0;
+        double maxMs = 0;
+        for (Timer timer : meterRegistry.find(VectorStoreService.SEARCH_TIMER).timers()) {
+            count += timer.count();
+            totalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+            maxMs = Math.max(maxMs, timer.max(TimeUnit.MILLISECONDS));
+        }
+
+        return new VectorIndexHealth(
+                current,
+                baselineIndexBytesPerLiveTuple,
+                bloatFactor(),
+                isVacuumDue(current),
+                isReindexDue(current),
+                lastVacuum,
+                lastReindex,
+                count,
+                count == 0 ? 0 : totalMs / count,
+                maxMs);
+    }
+
+    private VectorTableStats refreshStats() {
+        VectorTableStats current = vectorChunkRepository.tableStats();
+        stats = current;
+        return current;
+    }
+
+    /** Records the freshly rebuilt index size as the reference for bloat. */
+    private void saveBaseline() {
+        VectorTableStats rebuilt = vectorChunkRepository.tableStats();
+        if (rebuilt.liveTuples() == 0) {
+            return;
+        }
+        baselineIndexBytesPerLiveTuple = rebuilt.indexBytesPerLiveTuple();
+        vectorChunkRepository.saveIndexBaseline(baselineIndexBytesPerLiveTuple);
+        log.info("Vector index baseline set to {} bytes per live row",
+                String.format("%.1f", baselineIndexBytesPerLiveTuple));
+    }
+
+    private boolean isVacuumDue(VectorTableStats current) {
+        return current.deadTupleRatio() > vacuumDeadTupleRatio;
+    }
+
+    private boolean isReindexDue(VectorTableStats current) {
+        if (baselineIndexBytesPerLiveTuple == 0) {
+            // Never measured: rebuild once to get a reference the current bloat can't skew
+            return current.liveTuples() > 0;
+        }
+        return current.indexBytesPerLiveTuple() > baselineIndexBytesPerLiveTuple * reindexBloatFactor;
+    }
+
+    private double bloatFactor() {
+        VectorTableStats current = stats;
+        if (current == null || baselineIndexBytesPerLiveTuple == 0) {
+            return 1.0;
+        }
+        return current.indexBytesPerLiveTuple() / baselineIndexBytesPerLiveTuple;
+    }
+
+    /** Whether the time falls in the maintenance window, which may span midnight. */
+    private boolean isInWindow(LocalTime time) {
+        if (windowStart.isBefore(windowEnd)) {
+            return !time.isBefore(windowStart) && time.isBefore(windowEnd);
+        }
+        return !time.isBefore(windowStart) || time.isBefore(windowEnd);
+    }
+}
@@ -0,0 +1,113 @@
+package com.hrassistant.service;
+
+import com.hrassistant.model.QuantizationReport;
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.model.VectorQuantization;
+import com.hrassistant.repository.VectorChunkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the trade-offs of each vector index representation on the live corpus:
+ * index size, bytes per vector, recall@5 against an exact scan, and search latency.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VectorIndexReportService {
+
+    private static final int RECALL_K = 5;
+
+    private final VectorChunkRepository vectorChunkRepository;
+
+    @Value("${hr-assistant.rag.quantization.candidate-multiplier:8}")
+    private int candidateMultiplier;
+
+    /**
+     * Builds a report for every {@link VectorQuantization}.
+     *
+     * Random stored chunks are used as queries. Ground truth is an exact sequential scan;
+     * the query chunk itself is excluded from both result lists so it does not inflate recall.
+     * Representations whose index does not exist are reported without recall or latency
+     * (see {@link #buildQuantizedIndexes()}). Read-only.
+     *
+     * @param sampleSize Number of sample queries
+     * @return One report per representation
+     */
+    public List<QuantizationReport> quantizationReport(int sampleSize) {
+        List<StoredChunk> queries = vectorChunkRepository.sample(sampleSize);
+        log.info("Building quantization report with {} sample queries", queries.size());
+
+        Map<String, List<String>> groundTruth = new HashMap<>();
+        for (StoredChunk query : queries) {
+            groundTruth.put(query.id(), topIds(
+                    vectorChunkRepository.exactSearch(query.embedding(), RECALL_K + 1, null), query.id()));
+        }
+
+        List<QuantizationReport> reports = new ArrayList<>();
+        for (VectorQuantization quantization : VectorQuantization.values()) {
+            String indexName = vectorChunkRepository.indexName(quantization);
+            Long indexSize = vectorChunkRepository.indexSizeBytes(indexName);
+            int bytesPerVector = vectorChunkRepository.bytesPerVector(quantization);
+
+            if (indexSize == null || queries.isEmpty()) {
+                reports.add(new QuantizationReport(quantization, indexName, indexSize, bytesPerVector, null, null));
+                continue;
+            }
+
+            int found = 0;
+            int expected = 0;
+            long totalNanos = 0;
+            for (StoredChunk query : queries) {
+                long start = System.nanoTime();
+                List<Document> hits = vectorChunkRepository.search(query.embedding(), quantization,
+                        RECALL_K + 1, (RECALL_K + 1) * candidateMultiplier, -1.0, null, null);
+                totalNanos += System.nanoTime() - start;
+
+                List<String> truth = groundTruth.get(query.id());
+                found += (int) topIds(hits, query.id()).stream().filter(truth::contains).count();
+                expected += truth.size();
+            }
+
+            double recall = expected == 0 ? 1.0 : (double) found / expected;
+            double averageLatencyMs = totalNanos / 1_000_000.0 / queries.size();
+            reports.add(new QuantizationReport(
+                    quantization, indexName, indexSize, bytesPerVector, recall, averageLatencyMs));
+
+            log.info("Quantization {}: index={} bytes, recall@{}={}, latency={}ms", quantization, indexSize,
+                    RECALL_K, String.format("%.3f", recall), String.format("%.2f", averageLatencyMs));
+        }
+        return reports;
+    }
+
+    /**
+     * Creates the missing quantized and truncated first-stage indexes, concurrently (can take a
+     * while on a large corpus).
+     *
+     * @return The names of the first-stage indexes
+     */
+    public List<String> buildQuantizedIndexes() {
+        List<String> indexNames = new ArrayList<>();
+        for (VectorQuantization quantization : VectorQuantization.values()) {
+            vectorChunkRepository.createQuantizedIndex(quantization);
+            indexNames.add(vectorChunkRepository.indexName(quantization));
+        }
+        return indexNames;
+    }
+
+    private static List<String> topIds(List<Document> hits, String excludedId) {
+        return hits.stream()
+                .map(Document::getId)
+                .filter(id -> !id.equals(excludedId))
+                .limit(RECALL_K)
+                .toList();
+    }
+}
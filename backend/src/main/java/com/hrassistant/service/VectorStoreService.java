@@ -1,14 +1,19 @@
 package com.hrassistant.service;
 
+import com.hrassistant.model.HrCategory;
+import com.hrassistant.model.VectorQuantization;
+import com.hrassistant.repository.VectorChunkRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.Filter;
 import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -18,8 +23,18 @@ import java.util.List;
 @RequiredArgsConstructor
 public class VectorStoreService {
 
+    /** Timer of the vector searches, tagged with the backend that served them. */
+    public static final String SEARCH_TIMER = "hr_assistant.vector.search";
+
     private final VectorStore vectorStore;
-    private final JdbcTemplate jdbcTemplate;
+    private final QueryEmbeddingService queryEmbeddingService;
+    private final InMemoryVectorIndex inMemoryVectorIndex;
+    private final VectorChunkRepository vectorChunkRepository;
+    private final RetrievalPostProcessor retrievalPostProcessor;
+    private final RetrievalCache retrievalCache;
+    private final DocumentCatalog documentCatalog;
+    private final ConversationWorkingSet conversationWorkingSet;
+    private final MeterRegistry meterRegistry;
 
     @Value("${hr-assistant.rag.max-results:5}")
     private int maxResults;
@@ -27,13 +42,40 @@ public class VectorStoreService {
     @Value("${hr-assistant.rag.similarity-threshold:0.3}")
     private double minScore;
 
+    @Value("${hr-assistant.rag.quantization.mode:NONE}")
+    private VectorQuantization quantization;
+
+    @Value("${hr-assistant.rag.quantization.candidate-multiplier:8}")
+    private int candidateMultiplier;
+
+    @Value("${hr-assistant.rag.category-routing.enabled:true}")
+    private boolean categoryRoutingEnabled;
+
+    @Value("${hr-assistant.rag.category-routing.partial-indexes:false}")
+    private boolean categoryIndexesEnabled;
+
+    @Value("${hr-assistant.rag.category-routing.min-hits:3}")
+    private int categoryMinHits;
+
+    @Value("${hr-assistant.rag.exact-scan-threshold:2000}")
+    private int exactScanThreshold;
+
+    @Value("${hr-assistant.rag.working-set.min-score:0.75}")
+    private double workingSetMinScore;
+
+    @Value("${hr-assistant.rag.working-set.min-hits:3}")
+    private int workingSetMinHits;
+
+    @Value("${hr-assistant.rag.post-processing.fetch-multiplier:3}")
+    private int postProcessingFetchMultiplier;
+
     /**
      * Stores a document in the vector store.
      * Spring AI automatically generates embeddings and persists to PostgreSQL.
      */
     public void store(Document document) {
         log.debug("Storing document {} for source: {}",
-                document.getId(), document.getMetadata().get("documentName"));
+                document.getId(), document.getMetadata().get("documentId"));
 
         // Store in vector store (embedding is generated automatically)
         vectorStore.add(List.of(document));
@@ -54,33 +96,193 @@ public class VectorStoreService {
      * @return List of matching documents
      */
     public List<Document> search(String query, List<String> documentIds) {
-        log.debug("Searching for similar documents (maxResults={}, minScore={}, documentIds={})",
-                maxResults, minScore, documentIds);
-
-        SearchRequest.Builder requestBuilder = SearchRequest.builder()
-                .query(query)
-                .topK(maxResults)
-                .similarityThreshold(minScore);
-
-        // Apply document ID filter if specified
-        if (documentIds != null && !documentIds.isEmpty()) {
-            // Build filter expression using OR for multiple document IDs
-            // Format: documentId == 'id1' || documentId == 'id2' || ...
-            String filterExpression = documentIds.stream()
-                    .map(id -> "documentId == '" + id + "'")
-                    .reduce((a, b) -> a + " || " + b)
-                    .orElse("");
-
-            requestBuilder.filterExpression(filterExpression);
-            log.debug("Applied document filter expression: {}", filterExpression);
+        return search(query, documentIds, null);
+    }
+
+    /**
+     * Searches for similar documents, optionally scoped to one HR category.
+     * Results are served from the retrieval cache when the same search ran against the current index.
+     *
+     * @param query The search query
+     * @param documentIds Optional list of document IDs to restrict search. If null or empty, searches all documents.
+     * @param category Optional HR category to scope the search to (widened if it yields too few matches)
+     * @return List of matching documents
+     */
+    public List<Document> search(String query, List<String> documentIds, HrCategory category) {
+        return retrievalCache.getOrSearch(query, documentIds, category, maxResults,
+                () -> search(queryEmbeddingService.embed(query), documentIds, category));
+    }
+
+    /**
+     * Searches for similar documents using a precomputed query embedding.
+     * Uses the in-memory replica when it is ready, PostgreSQL otherwise or if the replica fails.
+     * On PostgreSQL, a quantized first stage is used when configured, re-ranked on full vectors.
+     *
+     * @param embedding The query embedding
+     * @param documentIds Optional list of document IDs to restrict search. If null or empty, searches all documents.
+     * @return List of matching documents
+     */
+    public List<Document> search(float[] embedding, List<String> documentIds) {
+        return search(embedding, documentIds, null);
+    }
+
+    /**
+     * Searches for similar documents, optionally scoped to one HR category.
+     * A category-scoped search that returns fewer than {@code min-hits} matches is widened
+     * to all categories, so a misclassified question still finds its answer.
+     *
+     * @param embedding The query embedding
+     * @param documentIds Optional list of document IDs to restrict search. If null or empty, searches all documents.
+     * @param category Optional HR category to scope the search to
+     * @return List of matching documents
+     */
+    public List<Document> search(float[] embedding, List<String> documentIds, HrCategory category) {
+        return search(embedding, documentIds, category, maxResults);
+    }
+
+    /**
+     * Searches for the passages to put in the LLM context: a wider candidate set is retrieved,
+     * then diversified and merged by the {@link RetrievalPostProcessor}.
+     *
+     * @param query The search query
+     * @param documentIds Optional list of document IDs to restrict search. If null or empty, searches all documents.
+     * @param category Optional HR category to scope the search to
+     * @return Passages to use as context, best first
+     */
+    public List<Document> searchForContext(String query, List<String> documentIds, HrCategory category) {
+        return searchForContext(query, documentIds, category, null);
+    }
+
+    /**
+     * Searches for the passages to put in the LLM context of a conversation turn. The chunks
+     * retrieved in the conversation's recent turns are scored first; they replace the search when
+     * at least {@code min-hits} of them score {@code working-set.min-score} or more, a similarity
+     * high enough that they answer the question whatever else the index holds. Otherwise, e.g.
+     * on a change of topic, the full search runs (with category routing). The retrieved chunks
+     * are added to the conversation's working set.
+     *
+     * @param query The search query
+     * @param documentIds Optional list of document IDs to restrict search. If null or empty, searches all documents.
+     * @param category Optional HR category to scope the search to
+     * @param conversationId Optional conversation ID
+     * @return Passages to use as context, best first
+     */
+    public List<Document> searchForContext(String query, List<String> documentIds, HrCategory category,
+                                           String conversationId) {
+        int topK = retrievalPostProcessor.isEnabled() ? maxResults * postProcessingFetchMultiplier : maxResults;
+
+        List<Document> candidates;
+        List<String> workingSet = conversationWorkingSet.chunkIds(conversationId);
+        if (workingSet.isEmpty()) {
+            candidates = retrievalCache.getOrSearch(query, documentIds, category, topK,
+                    () -> search(queryEmbeddingService.embed(query), documentIds, category, topK));
+        } else {
+            float[] embedding = queryEmbeddingService.embed(query);
+            List<Document> hits = Timer.builder(SEARCH_TIMER).tag("backend", "working-set").register(meterRegistry)
+                    .record(() -> vectorChunkRepository.rankChunks(embedding, workingSet, topK, minScore, documentIds));
+            int minHits = Math.max(1, Math.min(workingSetMinHits, topK));
+            if (hits.size() >= minHits && hits.get(minHits - 1).getScore() >= workingSetMinScore) {
+                log.debug("Follow-up answered from the conversation working set ({} of {} chunks, best score {})",
+                        hits.size(), workingSet.size(), hits.get(0).getScore());
+                candidates = hits;
+            } else {
+                candidates = retrievalCache.getOrSearch(query, documentIds, category, topK,
+                        () -> search(embedding, documentIds, category, topK));
+            }
         }
+        conversationWorkingSet.record(conversationId, candidates);
+
+        return retrievalPostProcessor.isEnabled() ? retrievalPostProcessor.process(candidates, maxResults) : candidates;
+    }
 
-        List<Document> matches = vectorStore.similaritySearch(requestBuilder.build());
+    private List<Document> search(float[] embedding, List<String> documentIds, HrCategory category, int topK) {
+        log.debug("Searching for similar documents (topK={}, minScore={}, quantization={}, documentIds={}, category={})",
+                topK, minScore, quantization, documentIds, category);
+
+        List<Document> matches = searchIndex(embedding, documentIds, category, topK);
+
+        if (category != null && matches.size() < categoryMinHits) {
+            log.debug("Only {} matches in category {}, widening search to all categories", matches.size(), category);
+            matches = searchIndex(embedding, documentIds, null, topK);
+        }
 
         log.debug("Found {} matching documents", matches.size());
         return matches;
     }
 
+    /**
+     * Tags a document's chunks that have no category yet with the given HR category.
+     *
+     * @param documentId The document ID
+     * @param category The HR category
+     * @return The number of updated chunks
+     */
+    public int tagUncategorizedChunks(String documentId, HrCategory category) {
+        return vectorChunkRepository.tagUncategorizedChunks(documentId, category);
+    }
+
+    /**
+     * Creates the document ID index, and the HNSW indexes backing the configured quantized first
+     * stage and, if enabled, the per-category partitions, if missing. The partial indexes hold
+     * full-precision vectors, together as large as the main index: without them, category-scoped
+     * searches filter the main index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            vectorChunkRepository.createDocumentIdIndex();
+            if (quantization != VectorQuantization.NONE) {
+                vectorChunkRepository.createQuantizedIndex(quantization);
+            }
+            if (categoryRoutingEnabled && categoryIndexesEnabled) {
+                vectorChunkRepository.createCategoryIndexes();
+            }
+        } catch (Exception e) {
+            log.error("Failed to create vector indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one search against the in-memory replica when it is ready, PostgreSQL otherwise
+     * or if the replica fails.
+     */
+    private List<Document> searchIndex(float[] embedding, List<String> documentIds, HrCategory category, int topK) {
+        if (inMemoryVectorIndex.isReady()) {
+            try {
+                return Timer.builder(SEARCH_TIMER).tag("backend", "memory").register(meterRegistry)
+                        .record(() -> inMemoryVectorIndex.search(embedding, topK, minScore, documentIds, category));
+            } catch (Exception e) {
+                log.warn("In-memory vector search failed, falling back to pgvector: {}", e.getMessage());
+            }
+        }
+
+        // Few selected rows: an exact scan is faster than HNSW plus post-filtering and always fills topK
+        long selectedRows = estimateSelectedRows(documentIds);
+        if (selectedRows <= exactScanThreshold) {
+            log.debug("Filter selects ~{} chunks, using an exact scan", selectedRows);
+            return Timer.builder(SEARCH_TIMER).tag("backend", "pgvector-exact").register(meterRegistry)
+                    .record(() -> vectorChunkRepository.exactSearch(embedding, topK, minScore, documentIds, category));
+        }
+
+        return Timer.builder(SEARCH_TIMER).tag("backend", "pgvector").register(meterRegistry)
+                .record(() -> vectorChunkRepository.search(embedding, quantization, topK,
+                        topK * candidateMultiplier, minScore, documentIds, category));
+    }
+
+    /**
+     * Estimates the number of chunks a document filter selects from the chunk counts in the
+     * catalog; unfiltered searches select the whole table.
+     */
+    private long estimateSelectedRows(List<String> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        return documentIds.stream()
+                .distinct()
+                .mapToLong(id -> documentCatalog.find(id).map(DocumentCatalog.Entry::chunkCount).orElse(0))
+                .sum();
+    }
+
     /**
      * Removes all documents associated with a source document ID.
      * Uses filter expression to delete from PostgreSQL by metadata.
@@ -97,28 +299,4 @@ public class VectorStoreService {
 
         log.info("Removed documents for source: {}", documentId);
     }
-
-    /**
-     * Updates the document name in vector store metadata for all chunks of a document.
-     * Uses native SQL to update the JSON metadata column in PostgreSQL.
-     * Note: The vector_store table uses JSON type (not JSONB), so we cast to JSONB, update, and cast back.
-     *
-     * @param documentId The document ID
-     * @param newDocumentName The new document name
-     */
-    public void updateDocumentName(String documentId, String newDocumentName) {
-        log.debug("Updating document name in vector store for documentId: {}", documentId);
-
-        // Update metadata JSON field in vector_store table
-        // Cast json to jsonb, perform update, cast back to json
-        String sql = """
-            UPDATE vector_store
-            SET metadata = jsonb_set(metadata::jsonb, '{documentName}', to_jsonb(?::text))::json
-            WHERE metadata->>'documentId' = ?
-            """;
-
-        int updatedRows = jdbcTemplate.update(sql, newDocumentName, documentId);
-
-        log.info("Updated document name in {} vector store entries for documentId: {}", updatedRows, documentId);
-    }
 }
@@ -0,0 +1,118 @@
+package com.hrassistant.service;
+
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.repository.VectorChunkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fast path for questions filtered to a few short documents: when their whole text fits the
+ * context budget, it is loaded in chunk order and sent to the LLM as is, instead of running a
+ * similarity search that would keep only a few fragments of it.
+ *
+ * <p>The size is first estimated from the chunk counts in the document catalog, so documents
+ * that are obviously too large cost no database round trip.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WholeDocumentRetriever {
+
+    private final VectorChunkRepository vectorChunkRepository;
+    private final DocumentCatalog documentCatalog;
+    private final ContextPacker contextPacker;
+    private final RetrievalPostProcessor retrievalPostProcessor;
+
+    @Value("${hr-assistant.rag.whole-document.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hr-assistant.rag.whole-document.max-documents:3}")
+    private int maxDocuments;
+
+    @Value("${hr-assistant.rag.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${hr-assistant.rag.chunk-overlap:50}")
+    private int chunkOverlap;
+
+    /**
+     * Loads the complete text of the filtered documents if it fits the context budget.
+     *
+     * @param documentIds The document filter of the question
+     * @return One passage per document holding its whole text, or empty when the filter is
+     *         missing, too wide or the documents are too large
+     */
+    public Optional<List<Document>> retrieve(List<String> documentIds) {
+        if (!enabled || documentIds == null || documentIds.isEmpty() || documentIds.size() > maxDocuments) {
+            return Optional.empty();
+        }
+
+        int budget = contextPacker.characterBudget();
+        long estimate = 0;
+        for (String documentId : documentIds) {
+            Optional<DocumentCatalog.Entry> entry = documentCatalog.find(documentId);
+            if (entry.isEmpty()) {
+                return Optional.empty();
+            }
+            // Upper bound of the text length: each chunk adds chunkSize - overlap new characters
+            estimate += (long) entry.get().chunkCount() * (chunkSize - chunkOverlap) + chunkOverlap;
+        }
+        if (estimate > budget) {
+            return Optional.empty();
+        }
+
+        List<StoredChunk> chunks = vectorChunkRepository.findTextsByDocumentIds(documentIds);
+        if (chunks.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<String, List<StoredChunk>> byDocument = new LinkedHashMap<>();
+        for (StoredChunk chunk : chunks) {
+            byDocument.computeIfAbsent(chunk.documentId(), id -> new ArrayList<>()).add(chunk);
+        }
+
+        List<Document> passages = new ArrayList<>(byDocument.size());
+        int length = 0;
+        for (List<StoredChunk> documentChunks : byDocument.values()) {
+            Document passage = toPassage(documentChunks);
+            length += passage.getText().length();
+            passages.add(passage);
+        }
+        if (length > budget) {
+            return Optional.empty();
+        }
+
+        log.debug("Whole-document context: {} documents, {} chars, similarity search skipped",
+                passages.size(), length);
+        return Optional.of(passages);
+    }
+
+    private Document toPassage(List<StoredChunk> chunks) {
+        StoredChunk first = chunks.get(0);
+        StoredChunk last = chunks.get(chunks.size() - 1);
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("documentId", first.documentId());
+        metadata.put("chunkIndex", first.chunkIndex());
+        metadata.put("lastChunkIndex", last.chunkIndex());
+        if (first.category() != null) {
+            metadata.put("category", first.category());
+        }
+
+        return Document.builder()
+                .id(first.id())
+                .text(retrievalPostProcessor.joinChunks(chunks.stream().map(StoredChunk::content).toList()))
+                .metadata(metadata)
+                .score(1.0)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.hrassistant.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ReplicationLagGuardTest {
+
+  @Test
+  @DisplayName("Parses both halves of an LSN as hexadecimal")
+  void parsesLsn() {
+    assertThat(ReplicationLagGuard.parseLsn("0/0")).isZero();
+    assertThat(ReplicationLagGuard.parseLsn("0/3000060")).isEqualTo(0x3000060L);
+    assertThat(ReplicationLagGuard.parseLsn("16/B374D848")).isEqualTo((0x16L << 32) | 0xB374D848L);
+  }
+
+  @Test
+  @DisplayName("Orders positions like the WAL, across the 32-bit boundary")
+  void ordersLikeWal() {
+    assertThat(ReplicationLagGuard.parseLsn("1/0"))
+        .isGreaterThan(ReplicationLagGuard.parseLsn("0/FFFFFFFF"));
+    assertThat(ReplicationLagGuard.parseLsn("0/A0"))
+        .isGreaterThan(ReplicationLagGuard.parseLsn("0/9F"));
+  }
+
+  @Test
+  @DisplayName("Accepts lower-case hexadecimal")
+  void acceptsLowerCase() {
+    assertThat(ReplicationLagGuard.parseLsn("16/b374d848"))
+        .isEqualTo(ReplicationLagGuard.parseLsn("16/B374D848"));
+  }
+}
@@ -0,0 +1,116 @@
+package com.hrassistant.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HnswIndexTest {
+
+  private static final int DIMENSIONS = 32;
+
+  @TempDir Path tempDir;
+
+  private HnswIndex index;
+  private final SplittableRandom random = new SplittableRandom(1);
+
+  @BeforeEach
+  void setUp() {
+    index = new HnswIndex(new OffHeapVectorStorage(tempDir.resolve("vectors.bin"), DIMENSIONS, 64), 8, 64);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    index.close();
+  }
+
+  @Test
+  @DisplayName("Empty index returns no results")
+  void emptyIndexReturnsNothing() {
+    assertThat(index.search(randomVector(), 5, 10, null)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Search finds an indexed vector as its own nearest neighbour")
+  void findsExactMatch() {
+    float[][] vectors = insertRandom(500);
+
+    List<HnswIndex.ScoredSlot> hits = index.search(vectors[123], 5, 50, null);
+
+    assertThat(hits).isNotEmpty();
+    assertThat(hits.get(0).slot()).isEqualTo(123);
+    assertThat(hits.get(0).score()).isCloseTo(1.0f, within(1e-4f));
+  }
+
+  @Test
+  @DisplayName("Approximate search agrees with exact scan on most of the top 5")
+  void recallAgainstExactScan() {
+    insertRandom(1000);
+    int[] allSlots = IntStream.range(0, 1000).toArray();
+
+    int found = 0;
+    for (int q = 0; q < 20; q++) {
+      float[] query = randomVector();
+      List<Integer> exact =
+          index.exactSearch(query, 5, allSlots).stream().map(HnswIndex.ScoredSlot::slot).toList();
+      List<Integer> approximate =
+          index.search(query, 5, 100, null).stream().map(HnswIndex.ScoredSlot::slot).toList();
+      found += (int) approximate.stream().filter(exact::contains).count();
+    }
+
+    assertThat(found / 100.0).isGreaterThanOrEqualTo(0.9);
+  }
+
+  @Test
+  @DisplayName("Removed slots are never returned")
+  void removedSlotsAreSkipped() {
+    float[][] vectors = insertRandom(200);
+    index.remove(42);
+
+    List<HnswIndex.ScoredSlot> hits = index.search(vectors[42], 5, 50, null);
+
+    assertThat(hits).extracting(HnswIndex.ScoredSlot::slot).doesNotContain(42);
+    assertThat(index.size()).isEqualTo(199);
+    assertThat(index.removedRatio()).isEqualTo(1.0 / 200);
+  }
+
+  @Test
+  @DisplayName("Filter restricts results to accepted slots, sorted by score")
+  void filterRestrictsResults() {
+    insertRandom(300);
+
+    List<HnswIndex.ScoredSlot> hits = index.search(randomVector(), 5, 50, slot -> slot % 2 == 0);
+
+    assertThat(hits).hasSize(5);
+    assertThat(hits).allMatch(hit -> hit.slot() % 2 == 0);
+    assertThat(hits)
+        .isSortedAccordingTo(Comparator.comparingDouble(HnswIndex.ScoredSlot::score).reversed());
+  }
+
+  private float[][] insertRandom(int count) {
+    float[][] vectors = new float[count][];
+    for (int i = 0; i < count; i++) {
+      vectors[i] = randomVector();
+      assertThat(index.insert(vectors[i])).isEqualTo(i);
+    }
+    return vectors;
+  }
+
+  private float[] randomVector() {
+    float[] vector = new float[DIMENSIONS];
+    for (int i = 0; i < DIMENSIONS; i++) {
+      vector[i] = (float) random.nextGaussian();
+    }
+    return vector;
+  }
+}
@@ -0,0 +1,168 @@
+package com.hrassistant.index;
+
+import com.pgvector.PGvector;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares top-5 cosine search latency of the in-process HNSW replica against pgvector.
+ *
+ * <p>The in-process benchmarks use a synthetic corpus. The pgvector benchmark queries an existing
+ * {@code vector_store} table and only runs when a database is configured, e.g.:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *   -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/hr_assistant_db \
+ *   -Dbench.jdbc.user=hr_assistant -Dbench.jdbc.password=hr_assistant_pwd \
+ *   com.hrassistant.index.VectorSearchBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorSearchBenchmark {
+
+  private static final int DIMENSIONS = 768;
+  private static final int TOP_K = 5;
+
+  @State(Scope.Benchmark)
+  public static class HnswState {
+
+    @Param({"10000", "100000"})
+    int corpusSize;
+
+    HnswIndex index;
+    int[] allSlots;
+    float[][] queries;
+    Path file;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      SplittableRandom random = new SplittableRandom(7);
+      file = Files.createTempFile("hnsw-bench", ".bin");
+      index = new HnswIndex(new OffHeapVectorStorage(file, DIMENSIONS), 16, 200);
+      allSlots = new int[corpusSize];
+      for (int i = 0; i < corpusSize; i++) {
+        allSlots[i] = index.insert(randomVector(random));
+      }
+      queries = new float[256][];
+      for (int i = 0; i < queries.length; i++) {
+        queries[i] = randomVector(random);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      index.close();
+      Files.deleteIfExists(file);
+    }
+
+    float[] nextQuery() {
+      return queries[next++ & (queries.length - 1)];
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class PgVectorState {
+
+    Connection connection;
+    PreparedStatement statement;
+    float[][] queries;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+      String url = System.getProperty("bench.jdbc.url");
+      if (url == null) {
+        return;
+      }
+      connection =
+          DriverManager.getConnection(
+              url, System.getProperty("bench.jdbc.user"), System.getProperty("bench.jdbc.password"));
+      PGvector.addVectorType(connection);
+      statement =
+          connection.prepareStatement(
+              "SELECT id, content, metadata, embedding <=> ? AS distance"
+                  + " FROM vector_store ORDER BY distance LIMIT " + TOP_K);
+      SplittableRandom random = new SplittableRandom(7);
+      queries = new float[256][];
+      for (int i = 0; i < queries.length; i++) {
+        queries[i] = randomVector(random);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+      if (connection != null) {
+        connection.close();
+      }
+    }
+  }
+
+  @Benchmark
+  public List<HnswIndex.ScoredSlot> hnswSearch(HnswState state) {
+    return state.index.search(state.nextQuery(), TOP_K, 100, null);
+  }
+
+  @Benchmark
+  public List<HnswIndex.ScoredSlot> exactScan(HnswState state) {
+    return state.index.exactSearch(state.nextQuery(), TOP_K, state.allSlots);
+  }
+
+  @Benchmark
+  public void pgvectorSearch(PgVectorState state, Blackhole blackhole) throws SQLException {
+    if (state.statement == null) {
+      return;
+    }
+    state.statement.setObject(1, new PGvector(state.queries[state.next++ & 255]));
+    try (ResultSet rs = state.statement.executeQuery()) {
+      while (rs.next()) {
+        blackhole.consume(rs.getString("content"));
+      }
+    }
+  }
+
+  private static float[] randomVector(SplittableRandom random) {
+    float[] vector = new float[DIMENSIONS];
+    for (int i = 0; i < DIMENSIONS; i++) {
+      vector[i] = (float) random.nextGaussian();
+    }
+    return vector;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(VectorSearchBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,121 @@
+package com.hrassistant.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class CacheServiceTest {
+
+  private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+  private static final String SCOPE = "3b1f0c2d4e5a6978";
+
+  @Nested
+  @DisplayName("Key structure")
+  class KeyTests {
+
+    @Test
+    @DisplayName("Normalizes case, accents, whitespace and trailing punctuation")
+    void normalizesVariants() {
+      assertThat(CacheService.normalize("  Combien de jours de CONGÉS   payés ?? "))
+          .isEqualTo("combien de jours de conges payes");
+      assertThat(CacheService.normalize("Combien de jours de congés payés"))
+          .isEqualTo(CacheService.normalize("combien  de jours de conges payes ?"));
+    }
+
+    @Test
+    @DisplayName("Keeps punctuation inside the question")
+    void keepsInnerPunctuation() {
+      assertThat(CacheService.normalize("Télétravail : combien de jours ?"))
+          .isEqualTo("teletravail : combien de jours");
+    }
+
+    @Test
+    @DisplayName("Reads the scope of a filtered question's key")
+    void scopeOfFilteredKey() {
+      assertThat(CacheService.scopeOf(CacheService.CACHE_KEY_PREFIX + "3:" + SCOPE + ":" + HASH))
+          .isEqualTo(SCOPE);
+    }
+
+    @Test
+    @DisplayName("Unfiltered questions have no scope")
+    void scopeOfUnfilteredKey() {
+      assertThat(CacheService.scopeOf(CacheService.CACHE_KEY_PREFIX + "3:" + HASH)).isNull();
+    }
+
+    @Test
+    @DisplayName("Identity drops the generation, so it is stable across generations")
+    void identityWithoutGeneration() {
+      String current = CacheService.CACHE_KEY_PREFIX + "12:" + SCOPE + ":" + HASH;
+      String previous = CacheService.CACHE_KEY_PREFIX + "11:" + SCOPE + ":" + HASH;
+
+      assertThat(CacheService.identityOf(current)).isEqualTo(SCOPE + ":" + HASH);
+      assertThat(CacheService.identityOf(previous)).isEqualTo(CacheService.identityOf(current));
+      assertThat(CacheService.identityOf(CacheService.CACHE_KEY_PREFIX + "12:" + HASH))
+          .isEqualTo(HASH);
+    }
+  }
+
+  @Nested
+  @DisplayName("Admission")
+  class AdmissionTests {
+
+    @Test
+    @DisplayName("Admits questions asked at least the minimum frequency")
+    void admitsFrequentQuestions() {
+      assertThat(CacheService.isFrequentEnough(false, 1, 2)).isFalse();
+      assertThat(CacheService.isFrequentEnough(false, 2, 2)).isTrue();
+      assertThat(CacheService.isFrequentEnough(false, 5, 2)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Always admits warmed answers")
+    void admitsPinned() {
+      assertThat(CacheService.isFrequentEnough(true, 0, 2)).isTrue();
+      assertThat(CacheService.replacesVictim(true, 0, 15)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Replaces the victim only when asked strictly more often")
+    void replacesLessFrequentVictim() {
+      assertThat(CacheService.replacesVictim(false, 4, 3)).isTrue();
+      assertThat(CacheService.replacesVictim(false, 3, 3)).isFalse();
+      assertThat(CacheService.replacesVictim(false, 2, 3)).isFalse();
+    }
+  }
+
+  @Nested
+  @DisplayName("New document eviction")
+  class NewDocumentTests {
+
+    @Test
+    @DisplayName("Evicts entries whose weakest passage the new document matches at least as well")
+    void evictsOutrankedEntries() {
+      List<String> keys = List.of("outranked", "tied", "kept");
+      Map<String, Double> bestScores = Map.of("outranked", 0.80, "tied", 0.70, "kept", 0.60);
+      List<Object> minScores =
+          List.of(
+              CachedResponseCodec.encodeScore(0.75),
+              CachedResponseCodec.encodeScore(0.70),
+              CachedResponseCodec.encodeScore(0.65));
+
+      assertThat(CacheService.affectedByNewDocument(keys, bestScores, minScores))
+          .containsExactly("outranked", "tied");
+    }
+
+    @Test
+    @DisplayName("Evicts entries whose weakest passage score is unknown")
+    void evictsUnknownScores() {
+      List<String> keys = List.of("expired", "kept");
+      Map<String, Double> bestScores = Map.of("expired", 0.31, "kept", 0.31);
+      List<Object> minScores = Arrays.asList(null, CachedResponseCodec.encodeScore(0.9));
+
+      assertThat(CacheService.affectedByNewDocument(keys, bestScores, minScores))
+          .containsExactly("expired");
+    }
+  }
+}
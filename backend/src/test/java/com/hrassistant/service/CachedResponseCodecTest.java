@@ -0,0 +1,90 @@
+package com.hrassistant.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.hrassistant.model.CachedResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CachedResponseCodecTest {
+
+  @Test
+  @DisplayName("Body round-trips question, response, sources and caching time")
+  void roundTripsBody() {
+    CachedResponse response =
+        CachedResponse.builder()
+            .question("Combien de jours de congés ?")
+            .response("25 jours ouvrés par an.\n\n**Sources:**\n- Accord télétravail.pdf")
+            .sources(List.of("Accord télétravail.pdf", "Règlement intérieur.pdf"))
+            .cachedAt(LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000))
+            .questionEmbedding(new float[] {0.1f, 0.2f})
+            .build();
+
+    CachedResponse decoded = CachedResponseCodec.decodeBody(CachedResponseCodec.encodeBody(response));
+
+    assertThat(decoded.getQuestion()).isEqualTo(response.getQuestion());
+    assertThat(decoded.getResponse()).isEqualTo(response.getResponse());
+    assertThat(decoded.getSources()).isEqualTo(response.getSources());
+    assertThat(decoded.getCachedAt()).isEqualTo(response.getCachedAt());
+    // Stored in its own field
+    assertThat(decoded.getQuestionEmbedding()).isNull();
+  }
+
+  @Test
+  @DisplayName("Missing sources and caching time decode as empty and null")
+  void roundTripsMissingFields() {
+    CachedResponse response = CachedResponse.builder().question("q").response("").build();
+
+    CachedResponse decoded = CachedResponseCodec.decodeBody(CachedResponseCodec.encodeBody(response));
+
+    assertThat(decoded.getQuestion()).isEqualTo("q");
+    assertThat(decoded.getResponse()).isEmpty();
+    assertThat(decoded.getSources()).isEmpty();
+    assertThat(decoded.getCachedAt()).isNull();
+  }
+
+  @Test
+  @DisplayName("Embeddings round-trip as float16, two bytes per component")
+  void roundTripsEmbedding() {
+    float[] embedding = {0f, 1f, -1f, 0.123456f, -0.987654f, 0.000123f};
+
+    byte[] encoded = CachedResponseCodec.encodeEmbedding(embedding);
+    float[] decoded = CachedResponseCodec.decodeEmbedding(encoded);
+
+    assertThat(encoded).hasSize(embedding.length * 2);
+    assertThat(decoded).hasSameSizeAs(embedding);
+    for (int i = 0; i < embedding.length; i++) {
+      assertThat(decoded[i]).isCloseTo(embedding[i], within(1e-3f));
+    }
+  }
+
+  @Test
+  @DisplayName("Scores round-trip exactly")
+  void roundTripsScore() {
+    assertThat(CachedResponseCodec.decodeScore(CachedResponseCodec.encodeScore(0.734215)))
+        .isEqualTo(0.734215);
+    assertThat(CachedResponseCodec.decodeScore(CachedResponseCodec.encodeScore(Double.POSITIVE_INFINITY)))
+        .isEqualTo(Double.POSITIVE_INFINITY);
+  }
+
+  @Test
+  @DisplayName("Rejects bodies of an unknown format version")
+  void rejectsUnknownVersion() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+      out.writeByte(99);
+    }
+
+    assertThatThrownBy(() -> CachedResponseCodec.decodeBody(bytes.toByteArray()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("99");
+  }
+}
@@ -0,0 +1,119 @@
+package com.hrassistant.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+import com.hrassistant.model.PackedContext;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ContextPackerTest {
+
+  private static final String QUESTION = "Combien de jours de congés annuels ?";
+
+  @Mock private DocumentCatalog documentCatalog;
+
+  private ContextPacker contextPacker;
+
+  @BeforeEach
+  void setUp() {
+    contextPacker = new ContextPacker(documentCatalog);
+    ReflectionTestUtils.setField(contextPacker, "maxTokens", 1500);
+    ReflectionTestUtils.setField(contextPacker, "charsPerToken", 4);
+    ReflectionTestUtils.setField(contextPacker, "scoreGap", 0.1);
+    ReflectionTestUtils.setField(contextPacker, "minPassages", 1);
+    lenient()
+        .when(documentCatalog.displayName(anyString()))
+        .thenAnswer(invocation -> invocation.getArgument(0) + ".pdf");
+  }
+
+  private static Document passage(String id, String documentId, String text, double score) {
+    return Document.builder()
+        .id(id)
+        .text(text)
+        .metadata(Map.of("documentId", documentId))
+        .score(score)
+        .build();
+  }
+
+  @Test
+  @DisplayName("Keeps passages that fit the budget whole, best first")
+  void keepsPassagesWithinBudget() {
+    Document first = passage("a", "doc-1", "Les congés annuels sont de 25 jours ouvrés.", 0.90);
+    Document second = passage("b", "doc-2", "Les congés se posent dans l'outil RH.", 0.85);
+
+    PackedContext context = contextPacker.pack(QUESTION, List.of(first, second));
+
+    assertThat(context.text())
+        .isEqualTo(
+            "[Source: doc-1.pdf]\nLes congés annuels sont de 25 jours ouvrés.\n\n"
+                + "[Source: doc-2.pdf]\nLes congés se posent dans l'outil RH.");
+    assertThat(context.passages()).containsExactly(first, second);
+  }
+
+  @Test
+  @DisplayName("Leaves out passages after a large score drop")
+  void stopsAtScoreGap() {
+    Document first = passage("a", "doc-1", "Les congés annuels sont de 25 jours ouvrés.", 0.90);
+    Document second = passage("b", "doc-2", "Les congés se posent dans l'outil RH.", 0.85);
+    Document distant = passage("c", "doc-3", "La cantine ouvre à midi.", 0.60);
+
+    PackedContext context = contextPacker.pack(QUESTION, List.of(first, second, distant));
+
+    assertThat(context.passages()).containsExactly(first, second);
+    assertThat(context.text()).doesNotContain("cantine");
+  }
+
+  @Test
+  @DisplayName("Over budget, keeps the sentences closest to the question in document order")
+  void trimsToBudget() {
+    ReflectionTestUtils.setField(contextPacker, "maxTokens", 50);
+    Document first =
+        passage(
+            "a",
+            "doc-1",
+            "Le règlement intérieur s'applique tous les jours. Les congés annuels sont de 25 jours"
+                + " ouvrés. Le parking est réservé aux visiteurs.",
+            0.90);
+    Document second =
+        passage("b", "doc-2", "Les congés annuels se posent dans l'outil RH. La cantine ouvre à midi.", 0.88);
+    Document third = passage("c", "doc-3", "La mutuelle est obligatoire.", 0.87);
+
+    PackedContext context = contextPacker.pack(QUESTION, List.of(first, second, third));
+
+    // The second sentence of the first passage ranks highest but stays after the first one
+    assertThat(context.text())
+        .isEqualTo(
+            "[Source: doc-1.pdf]\nLe règlement intérieur s'applique tous les jours. […] Les congés"
+                + " annuels sont de 25 jours ouvrés.\n\n"
+                + "[Source: doc-2.pdf]\nLes congés annuels se posent dans l'outil RH.");
+    // A passage none of whose sentences fit is not reported as a source
+    assertThat(context.passages()).containsExactly(first, second);
+    assertThat(context.text().length()).isLessThanOrEqualTo(contextPacker.characterBudget());
+    assertThat(context.estimatedTokens()).isLessThanOrEqualTo(50);
+  }
+
+  @Test
+  @DisplayName("Returns an empty context when no sentence fits the budget")
+  void emptyWhenNothingFits() {
+    ReflectionTestUtils.setField(contextPacker, "maxTokens", 5);
+
+    PackedContext context =
+        contextPacker.pack(
+            QUESTION,
+            List.of(passage("a", "doc-1", "Les congés annuels sont de 25 jours ouvrés.", 0.90)));
+
+    assertThat(context.text()).isEmpty();
+    assertThat(context.passages()).isEmpty();
+  }
+}
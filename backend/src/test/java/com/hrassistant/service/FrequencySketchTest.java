@@ -0,0 +1,53 @@
+package com.hrassistant.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class FrequencySketchTest {
+
+  @Test
+  @DisplayName("Counts occurrences of a key")
+  void countsOccurrences() {
+    FrequencySketch sketch = new FrequencySketch(1_000);
+
+    for (int i = 0; i < 5; i++) {
+      sketch.increment("question-a");
+    }
+    sketch.increment("question-b");
+
+    assertThat(sketch.frequency("question-a")).isGreaterThanOrEqualTo(5);
+    assertThat(sketch.frequency("question-b")).isGreaterThanOrEqualTo(1);
+    assertThat(sketch.frequency("question-a")).isGreaterThan(sketch.frequency("question-b"));
+  }
+
+  @Test
+  @DisplayName("Caps frequencies at 15")
+  void capsFrequency() {
+    FrequencySketch sketch = new FrequencySketch(1_000);
+
+    for (int i = 0; i < 100; i++) {
+      sketch.increment("hot");
+    }
+
+    assertThat(sketch.frequency("hot")).isEqualTo(15);
+  }
+
+  @Test
+  @DisplayName("Halves counts once the sample size is reached")
+  void agesCounts() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 10; i++) {
+      sketch.increment("old");
+    }
+    int before = sketch.frequency("old");
+
+    // 10 * 16 additions trigger a reset
+    for (int i = 0; i < 200; i++) {
+      sketch.increment("filler-" + i);
+    }
+
+    assertThat(sketch.frequency("old")).isLessThan(before);
+  }
+}
@@ -0,0 +1,180 @@
+package com.hrassistant.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class InFlightRequestsTest {
+
+  private static final String KEY = "hr-assistant:cache:v2:0:question-a";
+  private static final String SIMILAR_KEY = "hr-assistant:cache:v2:0:question-b";
+  private static final String SCOPED_KEY = "hr-assistant:cache:v2:0:0123456789abcdef:question-b";
+  private static final String LOCK_KEY = "hr-assistant:inflight:" + KEY;
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ValueOperations<String, String> valueOperations;
+
+  private InFlightRequests inFlightRequests;
+  private final AtomicInteger generations = new AtomicInteger();
+  private final AtomicInteger remoteWaits = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() {
+    inFlightRequests = new InFlightRequests(redisTemplate, new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(inFlightRequests, "enabled", true);
+    ReflectionTestUtils.setField(inFlightRequests, "lockTtlSeconds", 120);
+    ReflectionTestUtils.setField(inFlightRequests, "similarityThreshold", 0.85);
+    lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+  }
+
+  private void lockAvailable(boolean available) {
+    when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(available);
+  }
+
+  private Flux<String> coalesce(String key, float[] embedding, Flux<String> answer) {
+    return inFlightRequests.coalesce(
+        key,
+        embedding,
+        () -> {
+          generations.incrementAndGet();
+          return answer;
+        },
+        () -> {
+          remoteWaits.incrementAndGet();
+          return Flux.just("remote answer");
+        });
+  }
+
+  @Test
+  @DisplayName("Followers of the same question share the leader's generation")
+  void followerJoinsLeader() {
+    lockAvailable(true);
+    Sinks.Many<String> answer = Sinks.many().unicast().onBackpressureBuffer();
+
+    Flux<String> leader = coalesce(KEY, new float[] {1, 0}, answer.asFlux());
+    Flux<String> follower = coalesce(KEY, new float[] {1, 0}, Flux.just("other answer"));
+
+    assertThat(follower).isSameAs(leader);
+    assertThat(inFlightRequests.activeCount()).isEqualTo(1);
+
+    StepVerifier.create(leader)
+        .then(() -> answer.tryEmitNext("Hello "))
+        .expectNext("Hello ")
+        .then(() -> answer.tryEmitNext("world"))
+        .expectNext("world")
+        .then(answer::tryEmitComplete)
+        .expectComplete()
+        .verify(TIMEOUT);
+    // Joining late replays the tokens already produced
+    StepVerifier.create(follower).expectNext("Hello ", "world").expectComplete().verify(TIMEOUT);
+
+    assertThat(generations).hasValue(1);
+    assertThat(remoteWaits).hasValue(0);
+  }
+
+  @Test
+  @DisplayName("A similar question with the same document filter joins, another filter does not")
+  void similarQuestionJoinsWithinScope() {
+    Flux<String> leader = coalesce(KEY, new float[] {1, 0}, Flux.never());
+
+    assertThat(coalesce(SIMILAR_KEY, new float[] {0.99f, 0.05f}, Flux.never())).isSameAs(leader);
+    assertThat(coalesce(SCOPED_KEY, new float[] {0.99f, 0.05f}, Flux.never())).isNotSameAs(leader);
+    assertThat(coalesce(SIMILAR_KEY, null, Flux.never())).isNotSameAs(leader);
+  }
+
+  @Test
+  @DisplayName("Waits for the answer when another node holds the lock")
+  void followsRemoteLeader() {
+    lockAvailable(false);
+
+    StepVerifier.create(coalesce(KEY, new float[] {1, 0}, Flux.just("local answer")))
+        .expectNext("remote answer")
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertThat(generations).hasValue(0);
+    assertThat(remoteWaits).hasValue(1);
+    verify(redisTemplate, never()).execute(any(RedisScript.class), any(List.class), any(Object[].class));
+  }
+
+  @Test
+  @DisplayName("Takes the lock with a TTL and releases it only if still owned")
+  @SuppressWarnings("unchecked")
+  void releasesOwnLockOnly() {
+    lockAvailable(true);
+
+    StepVerifier.create(coalesce(KEY, new float[] {1, 0}, Flux.just("answer")))
+        .expectNext("answer")
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+    // Expires on its own if this node dies mid-generation
+    verify(valueOperations).setIfAbsent(eq(LOCK_KEY), owner.capture(), eq(Duration.ofSeconds(120)));
+    // Compare-and-delete in one script: a lock that expired and was taken over by another node
+    // is left alone
+    ArgumentCaptor<RedisScript<Long>> script = ArgumentCaptor.forClass(RedisScript.class);
+    // Released once the answer is complete, after it reached the subscribers
+    verify(redisTemplate, timeout(1000)).execute(script.capture(), eq(List.of(LOCK_KEY)), eq(owner.getValue()));
+    assertThat(script.getValue().getScriptAsString()).contains("GET", "ARGV[1]", "DEL");
+    verify(redisTemplate, never()).delete(anyString());
+    assertThat(inFlightRequests.activeCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("A finished generation is not joined again")
+  void startsAgainAfterCompletion() {
+    lockAvailable(true);
+
+    StepVerifier.create(coalesce(KEY, new float[] {1, 0}, Flux.just("first"))).expectNext("first").verifyComplete();
+    // Unregistered just before the lock is released
+    verify(redisTemplate, timeout(1000)).execute(any(RedisScript.class), eq(List.of(LOCK_KEY)), anyString());
+    StepVerifier.create(coalesce(KEY, new float[] {1, 0}, Flux.just("second"))).expectNext("second").verifyComplete();
+
+    assertThat(generations).hasValue(2);
+    verify(redisTemplate, timeout(1000).times(2)).execute(any(RedisScript.class), eq(List.of(LOCK_KEY)), anyString());
+  }
+
+  @Test
+  @DisplayName("Answers locally when Redis is unavailable")
+  void generatesWithoutRedis() {
+    when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+        .thenThrow(new RedisConnectionFailureException("down"));
+
+    StepVerifier.create(coalesce(KEY, new float[] {1, 0}, Flux.just("answer")))
+        .expectNext("answer")
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertThat(generations).hasValue(1);
+    assertThat(remoteWaits).hasValue(0);
+  }
+}
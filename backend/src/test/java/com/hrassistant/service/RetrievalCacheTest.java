@@ -0,0 +1,91 @@
+package com.hrassistant.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import com.hrassistant.config.ReplicationLagGuard;
+import com.hrassistant.model.HrCategory;
+import com.hrassistant.repository.VectorChunkRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RetrievalCacheTest {
+
+  private static final String QUESTION = "Combien de jours de télétravail ?";
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ValueOperations<String, String> valueOperations;
+  @Mock private VectorChunkRepository vectorChunkRepository;
+  @Mock private ReplicationLagGuard replicationLagGuard;
+  @Mock private InMemoryVectorIndex inMemoryVectorIndex;
+
+  private RetrievalCache retrievalCache;
+
+  @BeforeEach
+  void setUp() {
+    retrievalCache =
+        new RetrievalCache(
+            redisTemplate, vectorChunkRepository, replicationLagGuard, inMemoryVectorIndex);
+    ReflectionTestUtils.setField(retrievalCache, "enabled", true);
+    ReflectionTestUtils.setField(retrievalCache, "ttlSeconds", 300);
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    lenient().when(valueOperations.get("hr-assistant:retrieval:generation")).thenReturn("7");
+  }
+
+  private String key(String query, List<String> documentIds, HrCategory category, int topK) {
+    return retrievalCache.lookup(query, documentIds, category, topK).key();
+  }
+
+  @Test
+  @DisplayName("Keys are bound to the index generation")
+  void keyIncludesGeneration() {
+    String current = key(QUESTION, null, null, 5);
+    when(valueOperations.get("hr-assistant:retrieval:generation")).thenReturn("8");
+
+    assertThat(current).startsWith("hr-assistant:retrieval:7:");
+    assertThat(key(QUESTION, null, null, 5))
+        .startsWith("hr-assistant:retrieval:8:")
+        .isNotEqualTo(current);
+  }
+
+  @Test
+  @DisplayName("Case, whitespace, trailing punctuation and filter order share a key")
+  void equivalentRetrievalsShareKey() {
+    assertThat(key("  combien de jours   de TÉLÉTRAVAIL", List.of("doc-2", "doc-1"), null, 5))
+        .isEqualTo(key(QUESTION, List.of("doc-1", "doc-2"), null, 5));
+  }
+
+  @Test
+  @DisplayName("Filter, category and result count each change the key")
+  void differentRetrievalsDoNotShareKey() {
+    String base = key(QUESTION, List.of("doc-1"), null, 5);
+
+    assertThat(key(QUESTION, List.of("doc-2"), null, 5)).isNotEqualTo(base);
+    assertThat(key(QUESTION, null, null, 5)).isNotEqualTo(base);
+    assertThat(key(QUESTION, List.of("doc-1"), HrCategory.CONTRAT_CONDITIONS, 5)).isNotEqualTo(base);
+    assertThat(key(QUESTION, List.of("doc-1"), null, 10)).isNotEqualTo(base);
+  }
+
+  @Test
+  @DisplayName("Lookups made while a write is not yet visible are not up to date")
+  void lookupWhileLagging() {
+    assertThat(retrievalCache.lookup(QUESTION, null, null, 5).upToDate()).isTrue();
+
+    when(replicationLagGuard.hasRecentWrites()).thenReturn(true);
+    assertThat(retrievalCache.lookup(QUESTION, null, null, 5).upToDate()).isFalse();
+
+    when(replicationLagGuard.hasRecentWrites()).thenReturn(false);
+    when(inMemoryVectorIndex.hasPendingUpdates()).thenReturn(true);
+    assertThat(retrievalCache.lookup(QUESTION, null, null, 5).upToDate()).isFalse();
+  }
+}
@@ -0,0 +1,141 @@
+package com.hrassistant.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.repository.VectorChunkRepository;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RetrievalPostProcessorTest {
+
+  @Mock private VectorChunkRepository vectorChunkRepository;
+  @Mock private InMemoryVectorIndex inMemoryVectorIndex;
+
+  private RetrievalPostProcessor postProcessor;
+
+  @BeforeEach
+  void setUp() {
+    postProcessor = new RetrievalPostProcessor(vectorChunkRepository, inMemoryVectorIndex);
+    ReflectionTestUtils.setField(postProcessor, "enabled", true);
+    ReflectionTestUtils.setField(postProcessor, "chunkOverlap", 5);
+    ReflectionTestUtils.setField(postProcessor, "mmrLambda", 0.7);
+    ReflectionTestUtils.setField(postProcessor, "completeSentences", true);
+  }
+
+  private static Document chunk(String id, String documentId, int chunkIndex, String text, double score) {
+    return Document.builder()
+        .id(id)
+        .text(text)
+        .metadata(Map.of("documentId", documentId, "chunkIndex", chunkIndex))
+        .score(score)
+        .build();
+  }
+
+  @Test
+  @DisplayName("Drops a near-duplicate chunk in favour of a different relevant one")
+  void dropsNearDuplicates() {
+    List<Document> candidates =
+        List.of(
+            chunk("a", "doc-1", 0, "Le télétravail est possible deux jours par semaine.", 0.90),
+            chunk("b", "doc-2", 3, "Le télétravail est possible deux jours par semaine.", 0.89),
+            chunk("c", "doc-3", 7, "Les tickets restaurant sont pris en charge à 60 %.", 0.80));
+    when(inMemoryVectorIndex.findEmbeddings(List.of("a", "b", "c")))
+        .thenReturn(
+            Map.of("a", new float[] {1, 0}, "b", new float[] {1, 0}, "c", new float[] {0, 1}));
+
+    List<Document> passages = postProcessor.process(candidates, 2);
+
+    assertThat(passages).extracting(Document::getId).containsExactly("a", "c");
+    // Every embedding came from the in-memory replica
+    verify(vectorChunkRepository, never()).findEmbeddings(anyList());
+  }
+
+  @Test
+  @DisplayName("Reads the embeddings the replica lacks from PostgreSQL")
+  void fallsBackToRepositoryForMissingEmbeddings() {
+    List<Document> candidates =
+        List.of(
+            chunk("a", "doc-1", 0, "Première réponse.", 0.90),
+            chunk("b", "doc-2", 0, "Seconde réponse.", 0.85));
+    when(inMemoryVectorIndex.findEmbeddings(List.of("a", "b")))
+        .thenReturn(Map.of("a", new float[] {1, 0}));
+    when(vectorChunkRepository.findEmbeddings(List.of("b")))
+        .thenReturn(Map.of("b", new float[] {0, 1}));
+
+    List<Document> passages = postProcessor.process(candidates, 2);
+
+    assertThat(passages).extracting(Document::getId).containsExactly("a", "b");
+  }
+
+  @Test
+  @DisplayName("Merges consecutive chunks of a document without their overlap")
+  void mergesAdjacentChunks() {
+    List<Document> candidates =
+        List.of(
+            chunk("a", "doc-1", 1, "Suite du texte. Abcde", 0.70),
+            chunk("b", "doc-1", 0, "Début du texte. Abcde", 0.90),
+            chunk("c", "doc-1", 2, "Abcde fin du texte.", 0.60),
+            chunk("d", "doc-2", 0, "Autre document.", 0.80));
+    when(inMemoryVectorIndex.findEmbeddings(anyList()))
+        .thenReturn(
+            Map.of(
+                "a", new float[] {1, 0, 0, 0},
+                "b", new float[] {0, 1, 0, 0},
+                "c", new float[] {0, 0, 1, 0},
+                "d", new float[] {0, 0, 0, 1}));
+
+    List<Document> passages = postProcessor.process(candidates, 4);
+
+    assertThat(passages).hasSize(2);
+    Document merged = passages.get(0);
+    assertThat(merged.getText()).isEqualTo("Début du texte. Abcde\nSuite du texte. Abcde fin du texte.");
+    assertThat(merged.getScore()).isEqualTo(0.90);
+    assertThat(merged.getMetadata()).containsEntry("lastChunkIndex", 2);
+    assertThat(passages.get(1).getId()).isEqualTo("d");
+  }
+
+  @Test
+  @DisplayName("Completes a passage cut mid-sentence with the start of the next chunk")
+  void completesSentenceFromNextChunk() {
+    List<Document> candidates = List.of(chunk("a", "doc-1", 0, "Les congés annuels sont de 25", 0.90));
+    when(inMemoryVectorIndex.findByPositions(List.of(Map.entry("doc-1", 1)))).thenReturn(List.of());
+    when(vectorChunkRepository.findByPositions(List.of(Map.entry("doc-1", 1))))
+        .thenReturn(
+            List.of(new StoredChunk("b", "doc-1", 1, null, "de 25 jours ouvrés. Ils sont pris", null)));
+
+    List<Document> passages = postProcessor.process(candidates, 1);
+
+    assertThat(passages).singleElement()
+        .extracting(Document::getText)
+        .isEqualTo("Les congés annuels sont de 25 jours ouvrés.");
+  }
+
+  @Test
+  @DisplayName("Does not query PostgreSQL for neighbours of documents held by the replica")
+  void readsNeighboursFromReplica() {
+    List<Document> candidates = List.of(chunk("a", "doc-1", 4, "Le dernier chunk du document", 0.90));
+    when(inMemoryVectorIndex.findByPositions(List.of(Map.entry("doc-1", 5)))).thenReturn(List.of());
+    when(inMemoryVectorIndex.hasDocument("doc-1")).thenReturn(true);
+
+    List<Document> passages = postProcessor.process(candidates, 1);
+
+    // No next chunk: the passage is left as is, without a database round trip
+    assertThat(passages).singleElement().extracting(Document::getText).isEqualTo("Le dernier chunk du document");
+    verify(vectorChunkRepository, never()).findByPositions(any());
+  }
+}
@@ -0,0 +1,248 @@
+package com.hrassistant.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hrassistant.config.ReplicationLagGuard;
+import com.hrassistant.exception.HrAssistantException;
+import com.hrassistant.model.Document;
+import com.hrassistant.model.DocumentStatus;
+import com.hrassistant.model.DocumentType;
+import com.hrassistant.model.SnapshotImportResult;
+import com.hrassistant.model.StoredChunk;
+import com.hrassistant.repository.DocumentRepository;
+import com.hrassistant.repository.VectorChunkRepository;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotServiceTest {
+
+  private static final int DIMENSIONS = 4;
+  private static final String MODEL = "nomic-embed-text";
+
+  @Mock private DocumentRepository documentRepository;
+  @Mock private VectorChunkRepository vectorChunkRepository;
+  @Mock private InMemoryVectorIndex inMemoryVectorIndex;
+  @Mock private RetrievalCache retrievalCache;
+  @Mock private CacheService cacheService;
+  @Mock private CacheWarmer cacheWarmer;
+  @Mock private ReplicationLagGuard replicationLagGuard;
+  @Mock private DocumentCatalog documentCatalog;
+
+  @TempDir Path exportDir;
+  @TempDir Path importDir;
+
+  private SnapshotService snapshotService;
+
+  @BeforeEach
+  void setUp() {
+    snapshotService =
+        new SnapshotService(
+            documentRepository,
+            vectorChunkRepository,
+            inMemoryVectorIndex,
+            retrievalCache,
+            cacheService,
+            cacheWarmer,
+            replicationLagGuard,
+            documentCatalog);
+    ReflectionTestUtils.setField(snapshotService, "dimensions", DIMENSIONS);
+    ReflectionTestUtils.setField(snapshotService, "embeddingModel", MODEL);
+    ReflectionTestUtils.setField(snapshotService, "storagePath", exportDir.toString());
+  }
+
+  private static Document document(String id, String filename, String filePath) {
+    return Document.builder()
+        .id(id)
+        .filename(filename)
+        .type(DocumentType.PDF)
+        .status(DocumentStatus.INDEXED)
+        .size(1234)
+        .chunkCount(1)
+        .uploadedAt(LocalDateTime.of(2026, 3, 2, 9, 30))
+        .indexedAt(LocalDateTime.of(2026, 3, 2, 9, 31, 12))
+        .category("CONGES")
+        .filePath(filePath)
+        .build();
+  }
+
+  private byte[] export(List<Document> documents, List<StoredChunk> chunks, boolean includeFiles)
+      throws IOException {
+    when(documentRepository.findAll()).thenReturn(documents);
+    doAnswer(
+            invocation -> {
+              Consumer<StoredChunk> consumer = invocation.getArgument(0);
+              chunks.forEach(consumer);
+              return null;
+            })
+        .when(vectorChunkRepository)
+        .forEachChunk(any());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    snapshotService.exportSnapshot(bytes, includeFiles);
+    return bytes.toByteArray();
+  }
+
+  /** Collects the inserted chunks; the service reuses its batch list. */
+  private List<StoredChunk> collectInsertedChunks() {
+    List<StoredChunk> inserted = new ArrayList<>();
+    when(vectorChunkRepository.insertChunks(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<StoredChunk> batch = invocation.getArgument(0);
+              inserted.addAll(batch);
+              return batch.size();
+            });
+    return inserted;
+  }
+
+  @Test
+  @DisplayName("Imports exactly the documents, files and chunks it exported")
+  void roundTrip() throws IOException {
+    Files.createDirectories(exportDir.resolve("2026"));
+    Files.writeString(exportDir.resolve("2026/conges.pdf"), "%PDF-1.7 congés");
+    Document withFile = document("doc-1", "Congés 2026.pdf", "2026/conges.pdf");
+    Document withoutFile = document("doc-2", "Mutuelle.pdf", null);
+    withoutFile.setCategory(null);
+    withoutFile.setIndexedAt(null);
+    StoredChunk first =
+        new StoredChunk(
+            "11111111-1111-1111-1111-111111111111",
+            "doc-1",
+            0,
+            "CONGES",
+            "Les congés annuels sont de 25 jours ouvrés.",
+            new float[] {0.1f, -0.2f, 0.3f, 0.4f});
+    StoredChunk second =
+        new StoredChunk(
+            "22222222-2222-2222-2222-222222222222",
+            "doc-2",
+            0,
+            null,
+            "La mutuelle est obligatoire.",
+            new float[] {1f, 0f, 0f, -1f});
+
+    byte[] snapshot = export(List.of(withFile, withoutFile), List.of(first, second), true);
+
+    ReflectionTestUtils.setField(snapshotService, "storagePath", importDir.toString());
+    List<StoredChunk> inserted = collectInsertedChunks();
+    List<Document> saved = new ArrayList<>();
+    when(documentRepository.save(any()))
+        .thenAnswer(
+            invocation -> {
+              saved.add(invocation.getArgument(0));
+              return invocation.getArgument(0);
+            });
+
+    SnapshotImportResult result = snapshotService.importSnapshot(new ByteArrayInputStream(snapshot));
+
+    assertThat(result.documentsImported()).isEqualTo(2);
+    assertThat(result.documentsSkipped()).isZero();
+    assertThat(result.chunksImported()).isEqualTo(2);
+    assertThat(saved).containsExactly(withFile, withoutFile);
+    assertThat(Files.readString(importDir.resolve("2026/conges.pdf")))
+        .isEqualTo("%PDF-1.7 congés");
+    assertThat(inserted)
+        .usingRecursiveFieldByFieldElementComparator()
+        .containsExactly(first, second);
+    verify(inMemoryVectorIndex).rebuildAsync();
+    verify(cacheService).invalidateAll();
+  }
+
+  @Test
+  @DisplayName("Skips documents already present along with their chunks")
+  void skipsExistingDocuments() throws IOException {
+    Document existing = document("doc-1", "Congés 2026.pdf", null);
+    Document added = document("doc-2", "Mutuelle.pdf", null);
+    StoredChunk existingChunk =
+        new StoredChunk(
+            "11111111-1111-1111-1111-111111111111", "doc-1", 0, "CONGES", "A", new float[4]);
+    StoredChunk addedChunk =
+        new StoredChunk(
+            "22222222-2222-2222-2222-222222222222", "doc-2", 0, "CONGES", "B", new float[4]);
+    byte[] snapshot = export(List.of(existing, added), List.of(existingChunk, addedChunk), false);
+
+    when(documentRepository.existsById(anyString()))
+        .thenAnswer(invocation -> "doc-1".equals(invocation.getArgument(0)));
+    List<StoredChunk> inserted = collectInsertedChunks();
+
+    SnapshotImportResult result = snapshotService.importSnapshot(new ByteArrayInputStream(snapshot));
+
+    assertThat(result.documentsImported()).isEqualTo(1);
+    assertThat(result.documentsSkipped()).isEqualTo(1);
+    assertThat(inserted).extracting(StoredChunk::documentId).containsExactly("doc-2");
+    verify(documentRepository, never()).save(existing);
+  }
+
+  @Test
+  @DisplayName("Rejects a snapshot whose embeddings have other dimensions")
+  void rejectsOtherDimensions() throws IOException {
+    byte[] snapshot = export(List.of(), List.of(), false);
+    ReflectionTestUtils.setField(snapshotService, "dimensions", 768);
+
+    assertThatThrownBy(() -> snapshotService.importSnapshot(new ByteArrayInputStream(snapshot)))
+        .isInstanceOf(HrAssistantException.class)
+        .satisfies(
+            ex ->
+                assertThat(((HrAssistantException) ex).getErrorCode())
+                    .isEqualTo(HrAssistantException.ErrorCode.INVALID_INPUT));
+  }
+
+  @Test
+  @DisplayName("Rejects an unknown document type as invalid input")
+  void rejectsUnknownDocumentType() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+      out.write("HRSNAP".getBytes(StandardCharsets.US_ASCII));
+      out.writeInt(2);
+      writeString(out, MODEL);
+      out.writeInt(DIMENSIONS);
+      out.writeLong(0);
+      out.writeInt(1);
+      writeString(out, "doc-1");
+      writeString(out, "Congés.docx");
+      writeString(out, "DOCX");
+    }
+
+    assertThatThrownBy(
+            () -> snapshotService.importSnapshot(new ByteArrayInputStream(bytes.toByteArray())))
+        .isInstanceOf(HrAssistantException.class)
+        .hasMessageContaining("DOCX")
+        .satisfies(
+            ex ->
+                assertThat(((HrAssistantException) ex).getErrorCode())
+                    .isEqualTo(HrAssistantException.ErrorCode.INVALID_INPUT));
+    verify(documentRepository, never()).existsById(anyString());
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}